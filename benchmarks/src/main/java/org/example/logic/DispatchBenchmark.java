@@ -0,0 +1,92 @@
+package org.example.logic;
+
+import javafx.util.Duration;
+import org.example.user_interface.SpectrumBuffer;
+import org.example.user_interface.UIComponents;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.swing.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Cross-thread paths from the media threads to the UI. The per-update invokeLater baseline
+// is what position ticks did before UiDispatcher; it is throttled to a bounded backlog so
+// the EDT queue cannot grow without limit during a run.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class DispatchBenchmark {
+    private static final int MAX_BACKLOG = 10_000;
+    private static final int BANDS = 64;
+
+    @State(Scope.Benchmark)
+    public static class Ui {
+        UIComponents components;
+        UiDispatcher dispatcher;
+        final AtomicInteger backlog = new AtomicInteger();
+
+        @Setup
+        public void setUp() throws Exception {
+            SwingUtilities.invokeAndWait(() -> components = new UIComponents());
+            dispatcher = new UiDispatcher(components);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Position {
+        long millis;
+
+        Duration next() {
+            millis = (millis + 17) % 3_600_000;
+            return Duration.millis(millis);
+        }
+    }
+
+    @Benchmark
+    public void coalescedPositionUpdate(Ui ui, Position position) {
+        ui.dispatcher.submitPosition(position.next());
+    }
+
+    @Benchmark
+    public void invokeLaterPerUpdate(Ui ui, Position position) {
+        while (ui.backlog.get() >= MAX_BACKLOG) {
+            Thread.onSpinWait();
+        }
+        ui.backlog.incrementAndGet();
+        long millis = (long) position.next().toMillis();
+        SwingUtilities.invokeLater(() -> {
+            ui.components.getTimeLabel().setText(MediaController.formatTime(millis) + " / 60:00");
+            ui.backlog.decrementAndGet();
+        });
+    }
+
+    @State(Scope.Group)
+    public static class Spectrum {
+        final SpectrumBuffer buffer = new SpectrumBuffer(BANDS);
+        final float[] frame = new float[BANDS];
+    }
+
+    @Benchmark
+    @Group("spectrum")
+    public void publishSpectrum(Spectrum spectrum) {
+        spectrum.buffer.publish(spectrum.frame);
+    }
+
+    @Benchmark
+    @Group("spectrum")
+    public float[] acquireSpectrum(Spectrum spectrum) {
+        return spectrum.buffer.acquire();
+    }
+}
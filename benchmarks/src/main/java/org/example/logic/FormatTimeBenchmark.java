@@ -0,0 +1,43 @@
+package org.example.logic;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// The time label is formatted on every position tick; this covers minutes-only and
+// multi-hour positions.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class FormatTimeBenchmark {
+    private long millis;
+
+    @Benchmark
+    public String shortTrack() {
+        millis = (millis + 1_013) % 600_000;
+        return MediaController.formatTime(millis);
+    }
+
+    @Benchmark
+    public String longRecording() {
+        millis = (millis + 60_013) % 36_000_000;
+        return MediaController.formatTime(millis);
+    }
+
+    @Benchmark
+    public String timeLabel() {
+        millis = (millis + 1_013) % 600_000;
+        return MediaController.formatTime(millis) + " / " + MediaController.formatTime(600_000);
+    }
+}
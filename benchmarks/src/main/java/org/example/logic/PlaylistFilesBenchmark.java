@@ -0,0 +1,87 @@
+package org.example.logic;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Startup cost of restoring a playlist by size: opening the mapped binary format and
+// reading the first screenful, reading every entry, and the line-based M3U import.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PlaylistFilesBenchmark {
+    private static final int VISIBLE_ROWS = 50;
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private Path directory;
+    private Path binary;
+    private Path m3u;
+
+    @Setup(Level.Trial)
+    public void writeFiles() throws IOException {
+        directory = Files.createTempDirectory("playlist-files");
+        List<String> paths = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            paths.add("/music/artist-" + (i % 97) + "/album-" + (i % 13) + "/track-" + i + ".mp3");
+        }
+        binary = directory.resolve("playlist" + PlaylistFiles.BINARY_EXTENSION);
+        m3u = directory.resolve("playlist.m3u");
+        PlaylistFiles.writeBinary(binary, paths);
+        PlaylistFiles.exportM3u(m3u, paths, path -> 180_000L);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() throws IOException {
+        Files.deleteIfExists(binary);
+        Files.deleteIfExists(m3u);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public int binaryOpenVisible() throws IOException {
+        List<String> playlist = PlaylistFiles.openBinary(binary);
+        int length = 0;
+        for (int i = 0; i < Math.min(VISIBLE_ROWS, playlist.size()); i++) {
+            length += playlist.get(i).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int binaryReadAll() throws IOException {
+        int length = 0;
+        for (String path : PlaylistFiles.openBinary(binary)) {
+            length += path.length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int m3uImport() throws IOException {
+        List<String> paths = new ArrayList<>();
+        PlaylistFiles.importM3u(m3u, paths::add);
+        return paths.size();
+    }
+}
@@ -0,0 +1,153 @@
+package org.example.logic;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Next/previous over a playlist where some files have disappeared from disk. next/previous
+// are the old per-step stat-and-remove loop; nextWithFileStatus mirrors the current
+// PlaylistManager walk against a warm FileStatusService, dropping the dead run in one
+// batch. PlaylistManager itself needs a JFrame, so the loops are reproduced here on top
+// of the same PlaylistStore.
+//
+// Every iteration starts from the full playlist and times one batch of WALK_STEPS steps, at
+// most one lap at any size and missingPercent, so each batch meets dead entries at the
+// configured rate instead of the first lap removing them for all later ones. Scores are per
+// batch; divide by WALK_STEPS for a single step.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20, batchSize = PlaylistNavigationBenchmark.WALK_STEPS)
+@Measurement(iterations = 50, batchSize = PlaylistNavigationBenchmark.WALK_STEPS)
+@Fork(1)
+@State(Scope.Thread)
+public class PlaylistNavigationBenchmark {
+    // The smallest playlist, 1000 entries at 50% missing, has 500 live ones.
+    static final int WALK_STEPS = 500;
+
+    @Param({"1000", "10000"})
+    public int size;
+
+    @Param({"0", "10", "50"})
+    public int missingPercent;
+
+    private Path directory;
+    private final List<String> template = new ArrayList<>();
+    private PlaylistStore playlist;
+    private int currentIndex;
+    private FileStatusService fileStatus;
+
+    @Setup(Level.Trial)
+    public void createFiles() throws IOException {
+        directory = Files.createTempDirectory("playlist-navigation");
+        for (int i = 0; i < size; i++) {
+            File file = directory.resolve("track-" + i + ".mp3").toFile();
+            if (i % 100 >= missingPercent) {
+                Files.createFile(file.toPath());
+            }
+            template.add(file.getAbsolutePath());
+        }
+        fileStatus = new FileStatusService(TimeUnit.HOURS.toNanos(1));
+        for (String path : template) {
+            fileStatus.check(path);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetPlaylist() {
+        playlist = new PlaylistStore();
+        playlist.addAll(template);
+        currentIndex = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() throws IOException {
+        fileStatus.shutdown();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public String next() {
+        while (!playlist.isEmpty()) {
+            int index = (currentIndex + 1) % playlist.size();
+            String path = playlist.get(index);
+            if (new File(path).exists()) {
+                currentIndex = index;
+                return path;
+            }
+            playlist.remove(index);
+            if (index < currentIndex) {
+                currentIndex--;
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public String previous() {
+        while (!playlist.isEmpty()) {
+            int index = (currentIndex - 1 + playlist.size()) % playlist.size();
+            String path = playlist.get(index);
+            if (new File(path).exists()) {
+                currentIndex = index;
+                return path;
+            }
+            playlist.remove(index);
+            if (index < currentIndex) {
+                currentIndex--;
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public String nextWithFileStatus() {
+        int size = playlist.size();
+        if (size == 0) {
+            return null;
+        }
+        List<Integer> missing = new ArrayList<>();
+        String target = null;
+        for (int i = 0, index = (currentIndex + 1) % size; i < size; i++, index = (index + 1) % size) {
+            String path = playlist.get(index);
+            if (fileStatus.status(path) == FileStatusService.Status.MISSING) {
+                missing.add(index);
+            } else {
+                target = path;
+                break;
+            }
+        }
+        int[] ascending = missing.stream().mapToInt(Integer::intValue).sorted().toArray();
+        for (int i = ascending.length - 1; i >= 0; i--) {
+            playlist.remove(ascending[i]);
+            if (ascending[i] < currentIndex) {
+                currentIndex--;
+            }
+        }
+        if (target != null) {
+            currentIndex = playlist.indexOf(target);
+        }
+        return target;
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.logic;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// PlaylistStore against the plain ArrayList it replaced, for the operations PlaylistManager
+// performs: duplicate checks on add, index lookups for the current track, and removals.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PlaylistStoreBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    @Param({"store", "arrayList"})
+    public String implementation;
+
+    private List<String> playlist;
+    private String[] paths;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup
+    public void setUp() {
+        playlist = "store".equals(implementation) ? new PlaylistStore() : new ArrayList<>();
+        paths = new String[size];
+        for (int i = 0; i < size; i++) {
+            paths[i] = "/music/artist-" + (i % 97) + "/album-" + (i % 13) + "/track-" + i + ".mp3";
+            playlist.add(paths[i]);
+        }
+    }
+
+    // Random picks keep the looked-up track spread over the list even after removeAndAppend
+    // has reordered it.
+    private String nextPath() {
+        return paths[random.nextInt(size)];
+    }
+
+    @Benchmark
+    public boolean addDuplicate() {
+        String path = nextPath();
+        return !playlist.contains(path) && playlist.add(path);
+    }
+
+    @Benchmark
+    public int indexOfCurrentTrack() {
+        return playlist.indexOf(nextPath());
+    }
+
+    // Removes a track and appends it again so the size stays constant across invocations.
+    @Benchmark
+    public int removeAndAppend() {
+        String path = nextPath();
+        int index = playlist.indexOf(path);
+        playlist.remove(index);
+        playlist.add(path);
+        return index;
+    }
+}
@@ -0,0 +1,101 @@
+package org.example.logic;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Decoder-to-output handoff: SpscFloatRingBuffer against an ArrayBlockingQueue of recycled
+// chunks, the lock-based design it replaced. Both sides use non-blocking calls; a failed
+// offer or an empty poll still counts as an operation, so compare samples moved via the
+// ring's fill level and full-offer count when the raw rate looks close.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RingBufferBenchmark {
+    private static final int CAPACITY_SAMPLES = 44_100;
+
+    @State(Scope.Group)
+    public static class Ring {
+        @Param({"256", "1024"})
+        public int chunk;
+
+        SpscFloatRingBuffer ring;
+
+        @Setup
+        public void setUp() {
+            ring = new SpscFloatRingBuffer(CAPACITY_SAMPLES, 2);
+        }
+    }
+
+    @State(Scope.Group)
+    public static class Queue {
+        @Param({"256", "1024"})
+        public int chunk;
+
+        ArrayBlockingQueue<float[]> full;
+        ArrayBlockingQueue<float[]> free;
+
+        @Setup
+        public void setUp() {
+            int chunks = Math.max(1, CAPACITY_SAMPLES / chunk);
+            full = new ArrayBlockingQueue<>(chunks);
+            free = new ArrayBlockingQueue<>(chunks);
+            for (int i = 0; i < chunks; i++) {
+                free.add(new float[chunk]);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Scratch {
+        final float[] samples = new float[1024];
+    }
+
+    @Benchmark
+    @Group("spsc")
+    public int ringProducer(Ring state, Scratch scratch) {
+        return state.ring.offer(scratch.samples, 0, state.chunk);
+    }
+
+    @Benchmark
+    @Group("spsc")
+    public int ringConsumer(Ring state, Scratch scratch) {
+        return state.ring.poll(scratch.samples, 0, state.chunk);
+    }
+
+    @Benchmark
+    @Group("blockingQueue")
+    public boolean queueProducer(Queue state, Scratch scratch) {
+        float[] buffer = state.free.poll();
+        if (buffer == null) {
+            return false;
+        }
+        System.arraycopy(scratch.samples, 0, buffer, 0, state.chunk);
+        return state.full.offer(buffer);
+    }
+
+    @Benchmark
+    @Group("blockingQueue")
+    public boolean queueConsumer(Queue state, Scratch scratch) {
+        float[] buffer = state.full.poll();
+        if (buffer == null) {
+            return false;
+        }
+        System.arraycopy(buffer, 0, scratch.samples, 0, state.chunk);
+        return state.free.offer(buffer);
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.logic;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// Type-ahead latency on a large synthetic playlist: from submitting a query until the
+// result reaches the caller, including the hop through the search thread. Queries cover
+// short terms (scan path), single and multi-term trigram lookups, and no match.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchIndexBenchmark {
+    private static final String[] WORDS = {"love", "night", "dance", "river", "blue", "fire", "heart", "road",
+            "summer", "rain", "city", "dream", "light", "home", "star"};
+
+    @Param({"200000"})
+    public int size;
+
+    @Param({"lo", "love", "river night", "album 1234", "xyzq"})
+    public String query;
+
+    private SearchIndex index;
+
+    @Setup
+    public void buildIndex() throws Exception {
+        SplittableRandom random = new SplittableRandom(42);
+        List<String> paths = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            paths.add("/music/Artist " + random.nextInt(5_000) + "/Album " + random.nextInt(20_000) + "/"
+                    + WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i + ".mp3");
+        }
+        index = new SearchIndex(path -> path.substring(path.indexOf('/', 7) + 1));
+        for (int i = 0; i < size; i += 1_000) {
+            index.addAll(paths.subList(i, Math.min(size, i + 1_000)));
+        }
+        search();
+    }
+
+    @TearDown
+    public void shutdown() {
+        index.shutdown();
+    }
+
+    @Benchmark
+    public SearchIndex.Result search() throws Exception {
+        CompletableFuture<SearchIndex.Result> result = new CompletableFuture<>();
+        index.query(query, 500, result::complete);
+        return result.get();
+    }
+}
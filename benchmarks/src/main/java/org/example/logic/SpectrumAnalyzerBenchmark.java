@@ -0,0 +1,75 @@
+package org.example.logic;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// One FFT frame per size with the default window and log binning, plus the offline batch
+// over 30 s of audio so the fork/join split can be compared with a single analyzer. With a
+// single core available the parallel batch can only show the split's overhead.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SpectrumAnalyzerBenchmark {
+    private static final float SAMPLE_RATE = 44_100f;
+    private static final int BANDS = 64;
+
+    @Param({"512", "1024", "2048", "4096", "8192"})
+    public int fftSize;
+
+    private SpectrumAnalyzer analyzer;
+    private float[] signal;
+    private float[] magnitudes;
+    private int offset;
+
+    @Setup
+    public void setUp() {
+        analyzer = new SpectrumAnalyzer(fftSize, SpectrumAnalyzer.Window.HANN, BANDS, SAMPLE_RATE,
+                SpectrumAnalyzer.MAX_UPDATES_PER_SECOND, true, -60f);
+        Random random = new Random(7);
+        signal = new float[(int) SAMPLE_RATE * 30];
+        for (int i = 0; i < signal.length; i++) {
+            signal[i] = (float) (0.5 * Math.sin(2 * Math.PI * 440 * i / SAMPLE_RATE)
+                    + 0.1 * (random.nextFloat() - 0.5f));
+        }
+        magnitudes = new float[BANDS];
+    }
+
+    @Benchmark
+    public float[] frame() {
+        offset = (offset + 735) % (signal.length - fftSize);
+        analyzer.analyze(signal, offset, magnitudes);
+        return magnitudes;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public float[][] offlineParallel() {
+        return analyzer.analyzeAll(signal, 735);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public float[][] offlineSequential() {
+        int frames = (signal.length - fftSize) / 735 + 1;
+        float[][] result = new float[frames][BANDS];
+        for (int frame = 0; frame < frames; frame++) {
+            analyzer.analyze(signal, frame * 735, result[frame]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.logic;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Sorted and filtered views over a large synthetic playlist with known durations and tags:
+// a full sort on a numeric column, a full sort on a dictionary column, and the
+// "unplayed, over 10 min, in this folder" smart playlist.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrackTableBenchmark {
+    @Param({"500000"})
+    public int size;
+
+    @Param({"duration", "artist", "smart"})
+    public String view;
+
+    private TrackTable table;
+    private TrackTable.Filter filter;
+    private TrackTable.Column sortBy;
+
+    @Setup
+    public void buildTable() throws Exception {
+        File dataDir = Files.createTempDirectory("track-table-bench").toFile();
+        MetadataCache metadataCache = new MetadataCache(dataDir);
+        SplittableRandom random = new SplittableRandom(42);
+        List<String> paths = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String artist = "Artist " + random.nextInt(5_000);
+            String path = "/music/" + artist + "/Album " + random.nextInt(20_000) + "/track " + i + ".mp3";
+            paths.add(path);
+            metadataCache.put(new File(path), random.nextLong(60_000, 1_800_000), false,
+                    Map.of("artist", artist));
+        }
+        table = new TrackTable(metadataCache);
+        for (int i = 0; i < size; i += 1_000) {
+            table.addAll(paths.subList(i, Math.min(size, i + 1_000)));
+        }
+        for (int i = 0; i < size; i += 3) {
+            table.played(paths.get(i), i);
+        }
+
+        switch (view) {
+            case "duration":
+                filter = TrackTable.Filter.all();
+                sortBy = TrackTable.Column.DURATION;
+                break;
+            case "artist":
+                filter = TrackTable.Filter.all();
+                sortBy = TrackTable.Column.ARTIST;
+                break;
+            default:
+                filter = TrackTable.Filter.unplayed()
+                        .and(TrackTable.Filter.longerThan(600_000))
+                        .and(TrackTable.Filter.inFolder("/music/Artist 42"));
+                sortBy = TrackTable.Column.DURATION;
+        }
+    }
+
+    @TearDown
+    public void shutdown() {
+        table.shutdown();
+    }
+
+    @Benchmark
+    public TrackTable.View select() {
+        return table.select(filter, sortBy, true);
+    }
+}
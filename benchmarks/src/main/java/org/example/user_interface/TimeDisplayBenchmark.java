@@ -0,0 +1,69 @@
+package org.example.user_interface;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.swing.*;
+import java.util.concurrent.TimeUnit;
+
+// One operation is one second of playback: 60 position ticks (the FX pulse rate) applied
+// to the time label. Run with -prof gc; gc.alloc.rate.norm is then bytes allocated per
+// second of playback. The baseline is the previous String.format label update.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class TimeDisplayBenchmark {
+    private static final int TICKS_PER_SECOND = 60;
+    private static final long TICK_MILLIS = 1000 / TICKS_PER_SECOND;
+
+    private final JLabel label = new JLabel();
+    private final TimeDisplay display = new TimeDisplay();
+    private long millis;
+
+    @Benchmark
+    public JLabel stringFormatPerTick() {
+        long total = 600_000;
+        for (int i = 0; i < TICKS_PER_SECOND; i++) {
+            millis = (millis + TICK_MILLIS) % total;
+            label.setText(legacyFormat(millis) + " / " + legacyFormat(total));
+        }
+        return label;
+    }
+
+    @Benchmark
+    public TimeDisplay timeDisplay() {
+        long total = 600_000;
+        for (int i = 0; i < TICKS_PER_SECOND; i++) {
+            millis = (millis + TICK_MILLIS) % total;
+            display.setTime(millis, total);
+        }
+        return display;
+    }
+
+    @Benchmark
+    public TimeDisplay timeDisplayLongRecording() {
+        long total = 36_000_000;
+        for (int i = 0; i < TICKS_PER_SECOND; i++) {
+            millis = (millis + TICK_MILLIS) % total;
+            display.setTime(millis, total);
+        }
+        return display;
+    }
+
+    private static String legacyFormat(long millis) {
+        if (millis < 0) {
+            return "00:00";
+        }
+        return String.format("%02d:%02d", (int) (millis / 60_000), (int) (millis / 1000 % 60));
+    }
+}
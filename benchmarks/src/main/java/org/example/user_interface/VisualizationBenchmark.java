@@ -0,0 +1,88 @@
+package org.example.user_interface;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Per-frame cost of Visualization.render with synthetic spectra. Lives in the same package
+// so it can call the package-private render() without a scene or a running FX toolkit.
+// Setup fails the run if steady-state frames allocate; -prof gc gives the full picture.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class VisualizationBenchmark {
+    private static final int FRAMES = 64;
+    private static final int WARMUP_FRAMES = 50_000;
+    private static final int CHECKED_FRAMES = 10_000;
+
+    @Param({"NODES"})
+    public Visualization.Backend backend;
+
+    private Visualization visualization;
+    private float[][] frames;
+    private int frame;
+
+    @Setup
+    public void setUp() {
+        visualization = new Visualization(backend);
+        Random random = new Random(42);
+        frames = new float[FRAMES][visualization.getBandCount()];
+        for (float[] magnitudes : frames) {
+            for (int band = 0; band < magnitudes.length; band++) {
+                magnitudes[band] = -60f + random.nextFloat() * 60f;
+            }
+        }
+        checkAllocationFree();
+    }
+
+    // Runs both benchmark paths until they are compiled, then counts what this thread
+    // allocates over more frames. Any byte at all means a frame allocates.
+    private void checkAllocationFree() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            render();
+            submitAndAcquire();
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < CHECKED_FRAMES; i++) {
+            render();
+            submitAndAcquire();
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        if (allocated != 0) {
+            throw new IllegalStateException(allocated + " bytes allocated over " + CHECKED_FRAMES
+                    + " frames of " + backend + "; steady-state frames must not allocate");
+        }
+    }
+
+    @Benchmark
+    public void render() {
+        float[] magnitudes = frames[frame++ & (FRAMES - 1)];
+        visualization.render(magnitudes, magnitudes.length);
+    }
+
+    @Benchmark
+    public void submitAndAcquire() {
+        float[] magnitudes = frames[frame++ & (FRAMES - 1)];
+        visualization.submit(magnitudes);
+        SpectrumBuffer buffer = visualization.getSpectrumBuffer();
+        float[] latest = buffer.acquire();
+        visualization.render(latest, buffer.acquiredLength());
+    }
+}
@@ -1,16 +1,32 @@
 package org.example;
 
+import org.example.logic.FileStatusService;
+import org.example.logic.LibraryWatcher;
+import org.example.logic.LoudnessScanner;
 import org.example.logic.MediaController;
+import org.example.logic.MetadataCache;
+import org.example.logic.MetricsRegistry;
+import org.example.logic.PeakIndexer;
+import org.example.logic.PlaybackEngine;
 import org.example.logic.PlaylistManager;
+import org.example.logic.SearchIndex;
+import org.example.logic.TrackTable;
 import org.example.user_interface.UIComponents;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 
 public class AppMusicPlayer extends JFrame {
     private final UIComponents uiComponents;
     private final MediaController mediaController;
     private final PlaylistManager playlistManager;
+    private final MetricsRegistry metrics;
+    private final MetadataCache metadataCache;
+    private final PeakIndexer peakIndexer;
+    private final LoudnessScanner loudnessScanner;
+    private final FileStatusService fileStatus;
     private final JPanel videoPanel;
     private boolean isVideoMode = false;
     private final int AUDIO_HEIGHT = 600;
@@ -23,8 +39,15 @@ public class AppMusicPlayer extends JFrame {
 
         applyDarkTheme();
 
+        metrics = new MetricsRegistry();
+        metadataCache = new MetadataCache();
+        peakIndexer = new PeakIndexer();
+        loudnessScanner = new LoudnessScanner();
+        fileStatus = new FileStatusService();
         playlistManager = new PlaylistManager(this);
         uiComponents = new UIComponents();
+        uiComponents.getPlaylistModel().setPaths(playlistManager.getMediaFiles());
+        uiComponents.getPlaylistModel().setDisplayNameResolver(playlistManager::displayNameFor);
         mediaController = new MediaController(this);
 
         uiComponents.setStatus("Initializing...");
@@ -44,6 +67,74 @@ public class AppMusicPlayer extends JFrame {
 
         uiComponents.initListeners(this);
         initVideoToggle();
+
+        registerMetrics();
+        playlistManager.restoreSession();
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                playlistManager.saveSession();
+                peakIndexer.shutdown();
+                loudnessScanner.shutdown();
+                fileStatus.shutdown();
+                playlistManager.getSearchIndex().shutdown();
+                playlistManager.getTrackTable().shutdown();
+                if (playlistManager.getLibraryWatcher() != null) {
+                    playlistManager.getLibraryWatcher().shutdown();
+                }
+                metrics.shutdown();
+            }
+        });
+    }
+
+    private void registerMetrics() {
+        metrics.gauge("metadata.cache.size", metadataCache::size);
+        metrics.gauge("metadata.cache.hit_ratio", metadataCache::getHitRatio);
+        metrics.gauge("playlist.size", playlistManager::getPlaylistSize);
+        metrics.gauge("playlist.names.hit_rate", () -> uiComponents.getPlaylistModel().getCacheHitRate());
+        metrics.gauge("playlist.repaint.avg.nanos", () -> uiComponents.getPlaylistModel().getAverageRepaintNanos());
+        metrics.gauge("peaks.pending", peakIndexer::getPendingCount);
+        metrics.gauge("peaks.indexed", peakIndexer::getIndexedCount);
+        metrics.gauge("loudness.pending", loudnessScanner::getPendingCount);
+        metrics.gauge("loudness.tracks_per_minute_per_core", loudnessScanner::getTracksPerMinutePerCore);
+        metrics.gauge("file_status.cached", fileStatus::getCachedCount);
+        metrics.gauge("file_status.pending", fileStatus::getPendingCount);
+        metrics.gauge("file_status.hit_ratio", fileStatus::getHitRatio);
+        metrics.gauge("file_status.check.avg.nanos", fileStatus::getAverageCheckNanos);
+        SearchIndex searchIndex = playlistManager.getSearchIndex();
+        metrics.gauge("search.entries", searchIndex::getEntryCount);
+        metrics.gauge("search.memory.bytes", searchIndex::getMemoryBytes);
+        metrics.gauge("search.query.last.nanos", searchIndex::getLastQueryNanos);
+        metrics.gauge("search.query.avg.nanos", searchIndex::getAverageQueryNanos);
+        metrics.gauge("search.cancelled", searchIndex::getCancelledCount);
+        TrackTable trackTable = playlistManager.getTrackTable();
+        metrics.gauge("track_table.rows", trackTable::getRowCount);
+        metrics.gauge("track_table.memory.bytes", trackTable::getMemoryBytes);
+        metrics.gauge("track_table.query.last.nanos", trackTable::getLastQueryNanos);
+        metrics.gauge("track_table.query.avg.nanos", trackTable::getAverageQueryNanos);
+        LibraryWatcher watcher = playlistManager.getLibraryWatcher();
+        if (watcher != null) {
+            metrics.gauge("library.watch.keys", watcher::getWatchedDirectoryCount);
+            metrics.gauge("library.watch.events", watcher::getEventCount);
+            metrics.gauge("library.watch.overflows", watcher::getOverflowCount);
+            metrics.gauge("library.watch.registration_failures", watcher::getRegistrationFailureCount);
+            metrics.gauge("library.watch.lag.last.nanos", watcher::getLastLagNanos);
+            metrics.gauge("library.watch.lag.avg.nanos", watcher::getAverageLagNanos);
+        }
+        metrics.gauge("loader.queue.depth", () -> mediaController.getMediaLoader().getQueueDepth());
+        metrics.gauge("loader.cancellations", () -> mediaController.getMediaLoader().getCancellationCount());
+        metrics.gauge("ui.dispatch.submitted", () -> mediaController.getUiDispatcher().getSubmittedCount());
+        metrics.gauge("ui.dispatch.coalesced", () -> mediaController.getUiDispatcher().getCoalescedCount());
+        metrics.gauge("seek.coalesced", () -> mediaController.getSeekCoalescer().getCoalescedCount());
+        metrics.gauge("visualization.frames", () -> mediaController.getVisualization().getFramesRendered());
+        metrics.gauge("visualization.spectrum.coalesced",
+                () -> mediaController.getVisualization().getSpectrumBuffer().getCoalescedCount());
+        metrics.gauge("pcm.underruns", () -> {
+            PlaybackEngine engine = mediaController.getPcmEngine();
+            return engine == null ? 0 : engine.getUnderrunCount();
+        });
+        metrics.monitorEdtLag();
+        metrics.startPeriodicDump(MetadataCache.defaultDataDir());
     }
 
     private void initVideoToggle() {
@@ -108,6 +199,26 @@ public class AppMusicPlayer extends JFrame {
         return playlistManager;
     }
 
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    public MetadataCache getMetadataCache() {
+        return metadataCache;
+    }
+
+    public FileStatusService getFileStatus() {
+        return fileStatus;
+    }
+
+    public PeakIndexer getPeakIndexer() {
+        return peakIndexer;
+    }
+
+    public LoudnessScanner getLoudnessScanner() {
+        return loudnessScanner;
+    }
+
     public boolean isVideoMode() {
         return isVideoMode;
     }
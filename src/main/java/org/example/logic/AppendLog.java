@@ -0,0 +1,276 @@
+package org.example.logic;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Path-keyed records persisted as an append-only log, shared by the metadata cache, the
+// loudness scanner and play statistics. The newest record for a path wins. The log is read
+// and, once stale records outnumber live ones, compacted on a single writer thread that
+// also performs every append, so appends stay in order and startup never waits on disk.
+// A torn trailing record from an unclean shutdown is cut off instead of ending the read
+// silently, so later appends never follow garbage.
+final class AppendLog<E> {
+    interface Codec<E> {
+        E read(DataInputStream in) throws IOException;
+
+        void write(DataOutputStream out, E entry) throws IOException;
+    }
+
+    // Called under the log's lock whenever the live record for a path changes; previous or
+    // current is null when a path appears or goes away.
+    interface Listener<E> {
+        void changed(String path, E previous, E current);
+    }
+
+    private final File logFile;
+    private final int magic;
+    private final int version;
+    private final String description;
+    private final Codec<E> codec;
+    private final Listener<E> listener;
+    private final Map<String, E> entries = new HashMap<>();
+    private final ExecutorService writer;
+    private final CompletableFuture<Void> loaded = new CompletableFuture<>();
+    // Writer thread only: each record is serialized here before any of it reaches the file.
+    private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+    private final DataOutputStream record = new DataOutputStream(recordBytes);
+    private DataOutputStream out;
+    private long recordCount;
+
+    AppendLog(File logFile, int magic, int version, String description, Codec<E> codec, Listener<E> listener) {
+        this.logFile = logFile;
+        this.magic = magic;
+        this.version = version;
+        this.description = description;
+        this.codec = codec;
+        this.listener = listener;
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, description.replace(' ', '-') + "-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.execute(() -> {
+            try {
+                load();
+            } finally {
+                loaded.complete(null);
+            }
+        });
+    }
+
+    // Runs the action once the log has been read, on the writer thread or right away.
+    void whenLoaded(Runnable action) {
+        loaded.thenRun(action);
+    }
+
+    synchronized E get(String path) {
+        return entries.get(path);
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    void put(String path, E entry) {
+        synchronized (this) {
+            changed(path, entries.put(path, entry), entry);
+        }
+        writer.execute(() -> append(path, entry));
+    }
+
+    // Moves the record to a new path, e.g. after a rename. Returns false if there was none.
+    boolean rename(String from, String to) {
+        E entry;
+        synchronized (this) {
+            entry = entries.remove(from);
+            if (entry == null) {
+                return false;
+            }
+            changed(from, entry, null);
+            changed(to, entries.put(to, entry), entry);
+        }
+        writer.execute(() -> append(to, entry));
+        return true;
+    }
+
+    private void changed(String path, E previous, E current) {
+        if (listener != null) {
+            listener.changed(path, previous, current);
+        }
+    }
+
+    // Reads into a private map first; records put while loading are newer and win.
+    private void load() {
+        Map<String, E> stored = new HashMap<>();
+        long records = 0;
+        boolean rewrite = !logFile.exists();
+        long validLength = 0;
+        if (!rewrite) {
+            long fileLength = logFile.length();
+            try (CountingInputStream counting = new CountingInputStream(
+                    new BufferedInputStream(new FileInputStream(logFile)));
+                 DataInputStream in = new DataInputStream(counting)) {
+                if (in.readInt() == magic && in.readInt() == version) {
+                    validLength = counting.count;
+                    // Stops exactly at the end of the file; an EOF inside a record is a torn write.
+                    while (validLength < fileLength) {
+                        String path = in.readUTF();
+                        stored.put(path, codec.read(in));
+                        records++;
+                        validLength = counting.count;
+                    }
+                } else {
+                    rewrite = true;
+                }
+            } catch (IOException e) {
+                // Everything before the damaged record is kept.
+                System.err.println("The " + description + " is damaged after byte " + validLength
+                        + ", rewriting: " + e);
+                truncate(validLength);
+                rewrite = true;
+            }
+        }
+        Map<String, E> snapshot = null;
+        synchronized (this) {
+            for (Map.Entry<String, E> entry : stored.entrySet()) {
+                if (!entries.containsKey(entry.getKey())) {
+                    entries.put(entry.getKey(), entry.getValue());
+                    changed(entry.getKey(), null, entry.getValue());
+                }
+            }
+            recordCount += records;
+            if (rewrite || recordCount > entries.size() * 2L) {
+                snapshot = new HashMap<>(entries);
+            }
+        }
+        if (snapshot != null) {
+            compact(snapshot);
+        }
+    }
+
+    // Cuts the log back to its last complete record, in case the rewrite below fails.
+    private void truncate(long validLength) {
+        if (validLength == 0) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(logFile.toPath(), StandardOpenOption.WRITE)) {
+            channel.truncate(validLength);
+        } catch (IOException e) {
+            System.err.println("Failed to truncate the " + description + ": " + e.getMessage());
+        }
+    }
+
+    // Writer thread only, so no append can interleave; the snapshot keeps lookups unblocked.
+    private void compact(Map<String, E> snapshot) {
+        File parent = logFile.getParentFile();
+        File temp = new File(parent, logFile.getName() + ".tmp");
+        try {
+            closeOutput();
+            Files.createDirectories(parent.toPath());
+            try (DataOutputStream compacted = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(temp)))) {
+                compacted.writeInt(magic);
+                compacted.writeInt(version);
+                for (Map.Entry<String, E> entry : snapshot.entrySet()) {
+                    if (encode(entry.getKey(), entry.getValue())) {
+                        recordBytes.writeTo(compacted);
+                    }
+                }
+            }
+            Files.move(temp.toPath(), logFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            recordCount = snapshot.size();
+        } catch (IOException e) {
+            System.err.println("Failed to compact the " + description + ": " + e.getMessage());
+        }
+    }
+
+    private void append(String path, E entry) {
+        if (!encode(path, entry)) {
+            return;
+        }
+        try {
+            if (out == null) {
+                Files.createDirectories(logFile.getParentFile().toPath());
+                out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(logFile, true)));
+            }
+            recordBytes.writeTo(out);
+            out.flush();
+            recordCount++;
+        } catch (IOException e) {
+            System.err.println("Failed to append to the " + description + ": " + e.getMessage());
+        }
+    }
+
+    // A record the codec cannot write, e.g. a string over writeUTF's 64 KB limit, is dropped
+    // whole; written straight to the file it would leave half a record for the next flush.
+    private boolean encode(String path, E entry) {
+        recordBytes.reset();
+        try {
+            record.writeUTF(path);
+            codec.write(record, entry);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Skipping a " + description + " record for " + path + ": " + e);
+            return false;
+        }
+    }
+
+    private void closeOutput() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value != -1) {
+                count++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
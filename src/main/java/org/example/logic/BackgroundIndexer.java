@@ -0,0 +1,86 @@
+package org.example.logic;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Runs a per-path task for queued tracks on a low-priority worker pool, for the peak
+// indexer and the loudness scanner. A feeder thread hands paths to the pool through a
+// bounded queue, so a huge import never piles up tasks, and a path already waiting is
+// not queued twice.
+final class BackgroundIndexer {
+    private final ThreadPoolExecutor workers;
+    private final LinkedBlockingQueue<String> pending = new LinkedBlockingQueue<>();
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    private final Consumer<String> task;
+    private volatile boolean closed = false;
+
+    BackgroundIndexer(String name, Consumer<String> task) {
+        this.task = task;
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        workers = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads * 2),
+                runnable -> {
+                    Thread thread = new Thread(runnable, name);
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                },
+                (work, executor) -> {
+                    // Only the feeder submits, so blocking here throttles it to the workers' pace.
+                    try {
+                        if (!executor.isShutdown()) {
+                            executor.getQueue().put(work);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException(e);
+                    }
+                });
+        workers.allowCoreThreadTimeOut(true);
+
+        Thread feeder = new Thread(this::feed, name + "-feeder");
+        feeder.setDaemon(true);
+        feeder.start();
+    }
+
+    void enqueue(Collection<String> paths) {
+        for (String path : paths) {
+            if (queued.add(path)) {
+                pending.add(path);
+            }
+        }
+    }
+
+    private void feed() {
+        try {
+            while (!closed) {
+                String path = pending.take();
+                workers.execute(() -> {
+                    try {
+                        task.accept(path);
+                    } finally {
+                        queued.remove(path);
+                    }
+                });
+            }
+        } catch (InterruptedException | RejectedExecutionException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void shutdown() {
+        closed = true;
+        workers.shutdownNow();
+    }
+
+    int getPendingCount() {
+        return pending.size() + workers.getQueue().size();
+    }
+}
@@ -0,0 +1,194 @@
+package org.example.logic;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Answers "does this playlist entry still exist" without touching the filesystem on the
+// calling thread. Paths are stat'ed in small batches on a background pool (one attribute
+// read gives existence, size and mtime) and the results are kept for a TTL. Unchecked or
+// expired paths report UNKNOWN and are queued, so callers treat them as playable and let
+// the loader find out; on a slow network share the EDT never waits on a stat.
+public class FileStatusService {
+    public static final String TTL_PROPERTY = "fileStatus.ttlSeconds";
+    private static final long DEFAULT_TTL_SECONDS = 30;
+    private static final int THREADS = 4;
+    private static final int QUEUE_CAPACITY = 64;
+    private static final int BATCH_SIZE = 16;
+
+    public enum Status {
+        UNKNOWN, PRESENT, MISSING
+    }
+
+    public static final class Entry {
+        private final boolean exists;
+        private final long size;
+        private final long lastModified;
+        private final long checkedNanos;
+
+        Entry(boolean exists, long size, long lastModified, long checkedNanos) {
+            this.exists = exists;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.checkedNanos = checkedNanos;
+        }
+
+        public boolean exists() {
+            return exists;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor workers;
+    private final long ttlNanos;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong checks = new AtomicLong();
+    private final AtomicLong totalCheckNanos = new AtomicLong();
+    private final AtomicLong droppedBatches = new AtomicLong();
+
+    public FileStatusService() {
+        this(TimeUnit.SECONDS.toNanos(Math.max(1, Long.getLong(TTL_PROPERTY, DEFAULT_TTL_SECONDS))));
+    }
+
+    public FileStatusService(long ttlNanos) {
+        this.ttlNanos = ttlNanos;
+        AtomicInteger threadCount = new AtomicInteger();
+        workers = new ThreadPoolExecutor(THREADS, THREADS, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "file-status-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        workers.allowCoreThreadTimeOut(true);
+    }
+
+    // Any thread, never blocks. Expired or unchecked paths are queued for a check.
+    public Status status(String path) {
+        Entry entry = lookup(path);
+        if (entry == null) {
+            prefetch(List.of(path));
+            return Status.UNKNOWN;
+        }
+        return entry.exists ? Status.PRESENT : Status.MISSING;
+    }
+
+    // The cached result if it is still fresh, otherwise null.
+    public Entry lookup(String path) {
+        Entry entry = entries.get(path);
+        if (entry != null && System.nanoTime() - entry.checkedNanos < ttlNanos) {
+            hits.incrementAndGet();
+            return entry;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    // Queues every path without a fresh result, in batches. When the pool is saturated the
+    // batch is dropped; those paths simply stay UNKNOWN until asked for again.
+    public void prefetch(Collection<String> paths) {
+        List<String> batch = new ArrayList<>(BATCH_SIZE);
+        long now = System.nanoTime();
+        for (String path : paths) {
+            Entry entry = entries.get(path);
+            if ((entry == null || now - entry.checkedNanos >= ttlNanos) && inFlight.add(path)) {
+                batch.add(path);
+                if (batch.size() == BATCH_SIZE) {
+                    submit(batch);
+                    batch = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            submit(batch);
+        }
+    }
+
+    private void submit(List<String> batch) {
+        try {
+            workers.execute(() -> {
+                for (String path : batch) {
+                    check(path);
+                    inFlight.remove(path);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            droppedBatches.incrementAndGet();
+            inFlight.removeAll(batch);
+        }
+    }
+
+    // Stats the path on the calling thread and caches the result. For background threads.
+    public Entry check(String path) {
+        long start = System.nanoTime();
+        Entry entry;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(Paths.get(path), BasicFileAttributes.class);
+            entry = new Entry(true, attributes.size(), attributes.lastModifiedTime().toMillis(), System.nanoTime());
+        } catch (IOException | InvalidPathException | SecurityException e) {
+            entry = new Entry(false, 0, 0, System.nanoTime());
+        }
+        checks.incrementAndGet();
+        totalCheckNanos.addAndGet(entry.checkedNanos - start);
+        entries.put(path, entry);
+        return entry;
+    }
+
+    public void invalidate(String path) {
+        entries.remove(path);
+    }
+
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    public int getCachedCount() {
+        return entries.size();
+    }
+
+    public int getPendingCount() {
+        return inFlight.size();
+    }
+
+    public double getHitRatio() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0.0 : hits.get() / (double) total;
+    }
+
+    public long getCheckCount() {
+        return checks.get();
+    }
+
+    public long getAverageCheckNanos() {
+        long count = checks.get();
+        return count == 0 ? 0 : totalCheckNanos.get() / count;
+    }
+
+    public long getDroppedBatchCount() {
+        return droppedBatches.get();
+    }
+}
@@ -0,0 +1,142 @@
+package org.example.logic;
+
+import javax.swing.Timer;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Walks directory trees on a fork/join pool and hands supported media paths to the EDT
+// in batches, so large or slow (NAS) libraries never block the UI.
+public class LibraryScanner {
+    private static final int BATCH_INTERVAL_MILLIS = 250;
+    private static final int MAX_BATCH_SIZE = 5_000;
+
+    public interface Listener {
+        void onBatch(List<String> paths);
+
+        void onProgress(long filesFound, long directoriesScanned, double filesPerSecond);
+
+        void onFinished(boolean cancelled, long filesFound, long elapsedMillis);
+    }
+
+    private final ForkJoinPool pool;
+    private final ConcurrentLinkedQueue<String> found = new ConcurrentLinkedQueue<>();
+    private final AtomicLong filesFound = new AtomicLong();
+    private final AtomicLong directoriesScanned = new AtomicLong();
+    private volatile boolean cancelled = false;
+    private ForkJoinTask<?> rootTask;
+    private Timer drainTimer;
+    private long startNanos;
+
+    public LibraryScanner() {
+        this.pool = new ForkJoinPool(Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+    }
+
+    // Must be called on the EDT; all listener callbacks are delivered there as well.
+    public void scan(Path root, Listener listener) {
+        if (isScanning()) {
+            return;
+        }
+        found.clear();
+        filesFound.set(0);
+        directoriesScanned.set(0);
+        cancelled = false;
+        startNanos = System.nanoTime();
+        rootTask = pool.submit(new DirectoryTask(root));
+
+        drainTimer = new Timer(BATCH_INTERVAL_MILLIS, e -> drain(listener));
+        drainTimer.start();
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isScanning() {
+        return drainTimer != null;
+    }
+
+    private void drain(Listener listener) {
+        boolean done = rootTask.isDone();
+        if (cancelled) {
+            found.clear();
+        } else {
+            List<String> batch = new ArrayList<>();
+            String path;
+            while (batch.size() < MAX_BATCH_SIZE && (path = found.poll()) != null) {
+                batch.add(path);
+            }
+            if (!batch.isEmpty()) {
+                listener.onBatch(batch);
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+        long files = filesFound.get();
+        listener.onProgress(files, directoriesScanned.get(), files * 1_000_000_000.0 / Math.max(1, elapsedNanos));
+
+        if (done && found.isEmpty()) {
+            drainTimer.stop();
+            drainTimer = null;
+            listener.onFinished(cancelled, files, elapsedNanos / 1_000_000);
+        }
+    }
+
+    public long getFilesFound() {
+        return filesFound.get();
+    }
+
+    public long getDirectoriesScanned() {
+        return directoriesScanned.get();
+    }
+
+    private class DirectoryTask extends RecursiveAction {
+        private final Path directory;
+
+        DirectoryTask(Path directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        protected void compute() {
+            if (cancelled) {
+                return;
+            }
+            List<DirectoryTask> subdirectories = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (Path entry : entries) {
+                    if (cancelled) {
+                        return;
+                    }
+                    BasicFileAttributes attributes;
+                    try {
+                        attributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        continue;
+                    }
+                    if (attributes.isDirectory()) {
+                        subdirectories.add(new DirectoryTask(entry));
+                    } else if (attributes.isRegularFile()
+                            && MediaController.isSupportedFileName(entry.getFileName().toString())) {
+                        found.add(entry.toAbsolutePath().toString());
+                        filesFound.incrementAndGet();
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Skipping " + directory + ": " + e.getMessage());
+            }
+            directoriesScanned.incrementAndGet();
+            invokeAll(subdirectories);
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package org.example.logic;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Keeps the playlist in step with the filesystem while the player runs. The directories
+// behind playlist entries are watched (one key per directory, dropped when its last entry
+// leaves the playlist). Raw events are only used to collect touched paths; after a quiet
+// period each touched path is stat'ed once, so create/delete/modify storms and editors'
+// temp files collapse into the final state. Only a file created during the batch is reported
+// as added; other files sharing a folder with playlist entries are not the user's to import.
+// A deleted tracked file and a new file with the same size and mtime are reported as a rename.
+// OVERFLOW or a dead key reconciles the tracked files of just that directory, and a directory
+// whose key died is registered again once it is back, e.g. after a remount.
+// Enable with -Dlibrary.liveSync=true.
+public class LibraryWatcher {
+    public static final String ENABLED_PROPERTY = "library.liveSync";
+    private static final long DEBOUNCE_NANOS = TimeUnit.MILLISECONDS.toNanos(300);
+    private static final long MAX_BATCH_AGE_NANOS = TimeUnit.SECONDS.toNanos(2);
+    private static final long POLL_MILLIS = 100;
+    private static final long RETRY_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    public static final class Changes {
+        private final List<String> added;
+        private final List<String> removed;
+        private final List<String> modified;
+        private final Map<String, String> renamed;
+        private final long firstEventNanos;
+
+        Changes(List<String> added, List<String> removed, List<String> modified, Map<String, String> renamed,
+                long firstEventNanos) {
+            this.added = added;
+            this.removed = removed;
+            this.modified = modified;
+            this.renamed = renamed;
+            this.firstEventNanos = firstEventNanos;
+        }
+
+        public List<String> getAdded() {
+            return added;
+        }
+
+        public List<String> getRemoved() {
+            return removed;
+        }
+
+        public List<String> getModified() {
+            return modified;
+        }
+
+        // Old path -> new path.
+        public Map<String, String> getRenamed() {
+            return renamed;
+        }
+
+        public long getFirstEventNanos() {
+            return firstEventNanos;
+        }
+
+        public boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty() && modified.isEmpty() && renamed.isEmpty();
+        }
+    }
+
+    private final WatchService watchService;
+    private final Thread thread;
+    private final Consumer<Changes> listener;
+    private final MetadataCache metadataCache;
+    private final Set<String> tracked = ConcurrentHashMap.newKeySet();
+    private final Map<Path, Integer> entriesPerDirectory = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Path> directoryUpdates = new ConcurrentLinkedQueue<>();
+    private final Map<Path, WatchKey> keys = new HashMap<>();
+    private final Set<Path> touched = new LinkedHashSet<>();
+    private final Set<Path> created = new HashSet<>();
+    private final Set<Path> reconcile = new LinkedHashSet<>();
+    // Wanted directories that do not exist right now; registration is retried periodically.
+    private final Set<Path> missingDirectories = new LinkedHashSet<>();
+    private final AtomicLong events = new AtomicLong();
+    private final AtomicLong overflows = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong registrationFailures = new AtomicLong();
+    private final AtomicLong totalLagNanos = new AtomicLong();
+    private volatile int keyCount;
+    private volatile long lastLagNanos;
+    private long firstEventNanos;
+    private long lastEventNanos;
+    private long lastRetryNanos;
+
+    // The listener runs on the watcher thread; callers hop to their own thread as needed.
+    public LibraryWatcher(MetadataCache metadataCache, Consumer<Changes> listener) throws IOException {
+        this.metadataCache = metadataCache;
+        this.listener = listener;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.thread = new Thread(this::run, "library-watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    // Any thread. Registration itself happens on the watcher thread.
+    public void track(Collection<String> paths) {
+        for (String path : paths) {
+            if (tracked.add(path)) {
+                Path directory = directoryOf(path);
+                if (directory != null && entriesPerDirectory.merge(directory, 1, Integer::sum) == 1) {
+                    directoryUpdates.add(directory);
+                }
+            }
+        }
+    }
+
+    public void untrack(Collection<String> paths) {
+        for (String path : paths) {
+            if (tracked.remove(path)) {
+                Path directory = directoryOf(path);
+                if (directory != null && entriesPerDirectory.merge(directory, -1,
+                        (count, delta) -> count + delta == 0 ? null : count + delta) == null) {
+                    directoryUpdates.add(directory);
+                }
+            }
+        }
+    }
+
+    public void untrackAll() {
+        tracked.clear();
+        directoryUpdates.addAll(entriesPerDirectory.keySet());
+        entriesPerDirectory.clear();
+    }
+
+    // Records the time from the batch's first event until the caller finished applying it.
+    public void batchApplied(Changes changes) {
+        long lag = System.nanoTime() - changes.getFirstEventNanos();
+        lastLagNanos = lag;
+        totalLagNanos.addAndGet(lag);
+    }
+
+    public void shutdown() {
+        thread.interrupt();
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close library watcher: " + e.getMessage());
+        }
+    }
+
+    private static Path directoryOf(String path) {
+        File parent = new File(path).getParentFile();
+        return parent == null ? null : parent.toPath();
+    }
+
+    private void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                applyDirectoryUpdates();
+                WatchKey key = watchService.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                while (key != null) {
+                    collect(key);
+                    key = watchService.poll();
+                }
+                long now = System.nanoTime();
+                if (!missingDirectories.isEmpty() && now - lastRetryNanos >= RETRY_NANOS) {
+                    lastRetryNanos = now;
+                    directoryUpdates.addAll(missingDirectories);
+                    missingDirectories.clear();
+                }
+                boolean pending = !touched.isEmpty() || !reconcile.isEmpty();
+                if (pending && (now - lastEventNanos >= DEBOUNCE_NANOS || now - firstEventNanos >= MAX_BATCH_AGE_NANOS)) {
+                    flush();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Shutting down.
+        }
+    }
+
+    private void applyDirectoryUpdates() {
+        Path directory;
+        while ((directory = directoryUpdates.poll()) != null) {
+            boolean wanted = entriesPerDirectory.containsKey(directory);
+            WatchKey existing = keys.get(directory);
+            if (wanted && existing == null) {
+                try {
+                    keys.put(directory, directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY));
+                } catch (IOException | SecurityException e) {
+                    if (Files.isDirectory(directory)) {
+                        // E.g. the OS watch limit (fs.inotify.max_user_watches).
+                        registrationFailures.incrementAndGet();
+                    } else {
+                        missingDirectories.add(directory);
+                    }
+                }
+            } else if (!wanted) {
+                missingDirectories.remove(directory);
+                if (existing != null) {
+                    existing.cancel();
+                    keys.remove(directory);
+                }
+            }
+        }
+        keyCount = keys.size();
+    }
+
+    private void collect(WatchKey key) {
+        Path directory = (Path) key.watchable();
+        long now = System.nanoTime();
+        boolean idle = touched.isEmpty() && reconcile.isEmpty();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            events.incrementAndGet();
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflows.incrementAndGet();
+                reconcile.add(directory);
+            } else {
+                Path path = directory.resolve((Path) event.context());
+                touched.add(path);
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                    created.add(path);
+                }
+            }
+        }
+        if (!key.reset()) {
+            // The directory itself is gone or unmounted; it is registered again if it returns.
+            keys.remove(directory);
+            keyCount = keys.size();
+            reconcile.add(directory);
+            directoryUpdates.add(directory);
+        }
+        if (touched.isEmpty() && reconcile.isEmpty()) {
+            return;
+        }
+        if (idle) {
+            firstEventNanos = now;
+        }
+        lastEventNanos = now;
+    }
+
+    private void flush() {
+        long batchStart = firstEventNanos;
+        for (Path directory : reconcile) {
+            addTrackedFiles(directory);
+        }
+        reconcile.clear();
+
+        List<String> removed = new ArrayList<>();
+        List<String> modified = new ArrayList<>();
+        Map<String, BasicFileAttributes> appeared = new LinkedHashMap<>();
+        for (Path path : touched) {
+            String name = path.toString();
+            BasicFileAttributes attributes = readAttributes(path);
+            if (tracked.contains(name)) {
+                if (attributes == null) {
+                    removed.add(name);
+                } else if (changedSinceCached(name, attributes)) {
+                    modified.add(name);
+                }
+            } else if (created.contains(path) && attributes != null && attributes.isRegularFile()
+                    && MediaController.isSupportedFileName(path.getFileName().toString())) {
+                // Modify events on untracked neighbours are ignored; only new files are news.
+                appeared.put(name, attributes);
+            }
+        }
+        touched.clear();
+        created.clear();
+
+        Map<String, String> renamed = matchRenames(removed, appeared);
+        List<String> added = new ArrayList<>(appeared.keySet());
+        Changes changes = new Changes(added, removed, modified, renamed, batchStart);
+        if (!changes.isEmpty()) {
+            batches.incrementAndGet();
+            listener.accept(changes);
+        }
+    }
+
+    // Directory-level fallback: every tracked file in it is stat'ed again. Files that arrived
+    // while events were lost are not guessed at.
+    private void addTrackedFiles(Path directory) {
+        for (String path : tracked) {
+            if (directory.equals(directoryOf(path))) {
+                touched.add(Paths.get(path));
+            }
+        }
+    }
+
+    private Map<String, String> matchRenames(List<String> removed, Map<String, BasicFileAttributes> appeared) {
+        Map<String, String> renamed = new LinkedHashMap<>();
+        if (removed.isEmpty() || appeared.isEmpty()) {
+            return renamed;
+        }
+        Map<String, String> createdBySignature = new HashMap<>();
+        for (Map.Entry<String, BasicFileAttributes> entry : appeared.entrySet()) {
+            BasicFileAttributes attributes = entry.getValue();
+            createdBySignature.putIfAbsent(attributes.size() + ":" + attributes.lastModifiedTime().toMillis(),
+                    entry.getKey());
+        }
+        for (int i = removed.size() - 1; i >= 0; i--) {
+            String oldPath = removed.get(i);
+            MetadataCache.Entry known = metadataCache.peek(oldPath);
+            if (known == null) {
+                continue;
+            }
+            String newPath = createdBySignature.remove(known.getSize() + ":" + known.getLastModified());
+            if (newPath != null) {
+                renamed.put(oldPath, newPath);
+                appeared.remove(newPath);
+                removed.remove(i);
+                metadataCache.rename(oldPath, newPath);
+            }
+        }
+        return renamed;
+    }
+
+    private boolean changedSinceCached(String path, BasicFileAttributes attributes) {
+        MetadataCache.Entry known = metadataCache.peek(path);
+        return known == null || known.getSize() != attributes.size()
+                || known.getLastModified() != attributes.lastModifiedTime().toMillis();
+    }
+
+    private static BasicFileAttributes readAttributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException | SecurityException e) {
+            return null;
+        }
+    }
+
+    public int getWatchedDirectoryCount() {
+        return keyCount;
+    }
+
+    public int getTrackedCount() {
+        return tracked.size();
+    }
+
+    public long getEventCount() {
+        return events.get();
+    }
+
+    public long getOverflowCount() {
+        return overflows.get();
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    public long getRegistrationFailureCount() {
+        return registrationFailures.get();
+    }
+
+    public long getLastLagNanos() {
+        return lastLagNanos;
+    }
+
+    public long getAverageLagNanos() {
+        long count = batches.get();
+        return count == 0 ? 0 : totalLagNanos.get() / count;
+    }
+}
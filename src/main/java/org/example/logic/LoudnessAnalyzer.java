@@ -0,0 +1,169 @@
+package org.example.logic;
+
+import java.util.Arrays;
+
+// EBU R128 / ITU-R BS.1770 loudness measurement. Samples go through the two-stage
+// K-weighting filter per channel, mean-square energy is collected in 100 ms steps, and
+// overlapping 400 ms blocks are gated at -70 LUFS absolute and -10 LU relative.
+public class LoudnessAnalyzer {
+    public static final double ABSOLUTE_GATE_LUFS = -70.0;
+    private static final double RELATIVE_GATE_LU = -10.0;
+    private static final int STEPS_PER_BLOCK = 4;
+
+    private final int channels;
+    private final double[] channelWeights;
+    private final int samplesPerStep;
+    // Biquad coefficients: shelf stage then high-pass stage.
+    private final double shelfB0, shelfB1, shelfB2, shelfA1, shelfA2;
+    private final double passA1, passA2;
+    private final double[] shelfState1;
+    private final double[] shelfState2;
+    private final double[] passState1;
+    private final double[] passState2;
+    private final double[] stepEnergy = new double[STEPS_PER_BLOCK];
+    private double[] blockEnergies = new double[1_024];
+    private int blockCount = 0;
+    private int stepCount = 0;
+    private double currentEnergy = 0;
+    private int samplesInStep = 0;
+    private float peak = 0f;
+
+    public LoudnessAnalyzer(float sampleRate, int channels) {
+        this.channels = channels;
+        this.samplesPerStep = Math.max(1, Math.round(sampleRate / 10));
+        channelWeights = new double[channels];
+        for (int channel = 0; channel < channels; channel++) {
+            // 5.1 layout: the LFE channel is ignored and the surrounds get +1.5 dB.
+            channelWeights[channel] = channels == 6 && channel == 3 ? 0.0
+                    : channels >= 5 && channel >= 4 ? 1.41 : 1.0;
+        }
+
+        double k = Math.tan(Math.PI * 1681.974450955533 / sampleRate);
+        double q = 0.7071752369554196;
+        double vh = Math.pow(10.0, 3.999843853973347 / 20.0);
+        double vb = Math.pow(vh, 0.4996667741545416);
+        double a0 = 1.0 + k / q + k * k;
+        shelfB0 = (vh + vb * k / q + k * k) / a0;
+        shelfB1 = 2.0 * (k * k - vh) / a0;
+        shelfB2 = (vh - vb * k / q + k * k) / a0;
+        shelfA1 = 2.0 * (k * k - 1.0) / a0;
+        shelfA2 = (1.0 - k / q + k * k) / a0;
+
+        k = Math.tan(Math.PI * 38.13547087602444 / sampleRate);
+        q = 0.5003270373238773;
+        a0 = 1.0 + k / q + k * k;
+        passA1 = 2.0 * (k * k - 1.0) / a0;
+        passA2 = (1.0 - k / q + k * k) / a0;
+
+        shelfState1 = new double[channels];
+        shelfState2 = new double[channels];
+        passState1 = new double[channels];
+        passState2 = new double[channels];
+    }
+
+    // Interleaved samples in [-1, 1]; count is the number of samples, not frames.
+    public void process(float[] samples, int count) {
+        for (int i = 0; i + channels <= count; i += channels) {
+            for (int channel = 0; channel < channels; channel++) {
+                float sample = samples[i + channel];
+                float magnitude = Math.abs(sample);
+                if (magnitude > peak) {
+                    peak = magnitude;
+                }
+                // Transposed direct form II keeps two state values per stage and channel.
+                double shelved = shelfB0 * sample + shelfState1[channel];
+                shelfState1[channel] = shelfB1 * sample - shelfA1 * shelved + shelfState2[channel];
+                shelfState2[channel] = shelfB2 * sample - shelfA2 * shelved;
+                double filtered = shelved + passState1[channel];
+                passState1[channel] = -2.0 * shelved - passA1 * filtered + passState2[channel];
+                passState2[channel] = shelved - passA2 * filtered;
+                currentEnergy += channelWeights[channel] * filtered * filtered;
+            }
+            if (++samplesInStep == samplesPerStep) {
+                completeStep();
+            }
+        }
+    }
+
+    private void completeStep() {
+        stepEnergy[stepCount % STEPS_PER_BLOCK] = currentEnergy / samplesPerStep;
+        stepCount++;
+        currentEnergy = 0;
+        samplesInStep = 0;
+        if (stepCount >= STEPS_PER_BLOCK) {
+            double sum = 0;
+            for (double energy : stepEnergy) {
+                sum += energy;
+            }
+            if (blockCount == blockEnergies.length) {
+                blockEnergies = Arrays.copyOf(blockEnergies, blockCount * 2);
+            }
+            blockEnergies[blockCount++] = sum / STEPS_PER_BLOCK;
+        }
+    }
+
+    public Result finish() {
+        double absoluteThreshold = energyFor(ABSOLUTE_GATE_LUFS);
+        double sum = 0;
+        int count = 0;
+        for (int i = 0; i < blockCount; i++) {
+            if (blockEnergies[i] > absoluteThreshold) {
+                sum += blockEnergies[i];
+                count++;
+            }
+        }
+        if (count == 0) {
+            return new Result(Double.NEGATIVE_INFINITY, peak, 0.0, 0);
+        }
+        double relativeThreshold = Math.max(absoluteThreshold, energyFor(loudnessOf(sum / count) + RELATIVE_GATE_LU));
+        sum = 0;
+        count = 0;
+        for (int i = 0; i < blockCount; i++) {
+            if (blockEnergies[i] > relativeThreshold) {
+                sum += blockEnergies[i];
+                count++;
+            }
+        }
+        double gatedEnergy = count == 0 ? 0.0 : sum / count;
+        return new Result(count == 0 ? Double.NEGATIVE_INFINITY : loudnessOf(gatedEnergy), peak, gatedEnergy, count);
+    }
+
+    static double loudnessOf(double energy) {
+        return -0.691 + 10.0 * Math.log10(energy);
+    }
+
+    static double energyFor(double loudness) {
+        return Math.pow(10.0, (loudness + 0.691) / 10.0);
+    }
+
+    public static final class Result {
+        private final double integratedLufs;
+        private final float peak;
+        private final double gatedEnergy;
+        private final int gatedBlocks;
+
+        public Result(double integratedLufs, float peak, double gatedEnergy, int gatedBlocks) {
+            this.integratedLufs = integratedLufs;
+            this.peak = peak;
+            this.gatedEnergy = gatedEnergy;
+            this.gatedBlocks = gatedBlocks;
+        }
+
+        public double getIntegratedLufs() {
+            return integratedLufs;
+        }
+
+        public float getPeak() {
+            return peak;
+        }
+
+        // Mean energy of the blocks that passed both gates; used to pool tracks into albums.
+        public double getGatedEnergy() {
+            return gatedEnergy;
+        }
+
+        public int getGatedBlocks() {
+            return gatedBlocks;
+        }
+    }
+}
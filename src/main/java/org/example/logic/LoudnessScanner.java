@@ -0,0 +1,283 @@
+package org.example.logic;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Measures track loudness in the background and turns it into a playback gain. Results
+// are kept in an append-only log keyed by path, size and mtime like the metadata cache,
+// so a rescan only decodes new or changed files. Album gain pools the gated energy of all
+// measured tracks in the same folder.
+public class LoudnessScanner {
+    public static final String MODE_PROPERTY = "playback.normalization";
+    public static final String TARGET_PROPERTY = "playback.targetLufs";
+    private static final double DEFAULT_TARGET_LUFS = -18.0;
+    private static final int MAGIC = 0x4D504C55;
+    private static final int VERSION = 1;
+    private static final String LOG_NAME = "loudness.log";
+
+    public enum Mode {
+        OFF, TRACK, ALBUM;
+
+        public static Mode fromSystemProperty() {
+            String value = System.getProperty(MODE_PROPERTY, "track");
+            for (Mode mode : values()) {
+                if (mode.name().equalsIgnoreCase(value)) {
+                    return mode;
+                }
+            }
+            return TRACK;
+        }
+    }
+
+    public static final class Entry {
+        private final long size;
+        private final long lastModified;
+        private final double integratedLufs;
+        private final float peak;
+        private final double gatedEnergy;
+        private final int gatedBlocks;
+
+        Entry(long size, long lastModified, double integratedLufs, float peak, double gatedEnergy, int gatedBlocks) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.integratedLufs = integratedLufs;
+            this.peak = peak;
+            this.gatedEnergy = gatedEnergy;
+            this.gatedBlocks = gatedBlocks;
+        }
+
+        public double getIntegratedLufs() {
+            return integratedLufs;
+        }
+
+        public float getPeak() {
+            return peak;
+        }
+    }
+
+    // Pooled loudness of the measured tracks in one folder.
+    private static final class Album {
+        private final Map<String, Entry> tracks = new HashMap<>();
+        private double energy;
+        private long blocks;
+        private float peak;
+
+        // Albums are a folder's worth of tracks, so summing them again is cheap.
+        void update() {
+            energy = 0;
+            blocks = 0;
+            peak = 0f;
+            for (Entry track : tracks.values()) {
+                energy += track.gatedEnergy * track.gatedBlocks;
+                blocks += track.gatedBlocks;
+                peak = Math.max(peak, track.peak);
+            }
+        }
+    }
+
+    private final AppendLog<Entry> log;
+    private final BackgroundIndexer indexer;
+    // Guarded by itself; kept current as results land so gainFor never scans the log.
+    private final Map<String, Album> albums = new HashMap<>();
+    private final Mode mode = Mode.fromSystemProperty();
+    private final double targetLufs = readTargetLufs();
+    private final AtomicLong scanned = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong scanNanos = new AtomicLong();
+    private volatile boolean closed = false;
+
+    public LoudnessScanner() {
+        this(MetadataCache.defaultDataDir());
+    }
+
+    public LoudnessScanner(File dataDir) {
+        this.log = new AppendLog<>(new File(dataDir, LOG_NAME), MAGIC, VERSION, "loudness log",
+                new AppendLog.Codec<>() {
+                    @Override
+                    public Entry read(DataInputStream in) throws IOException {
+                        return new Entry(in.readLong(), in.readLong(), in.readDouble(),
+                                in.readFloat(), in.readDouble(), in.readInt());
+                    }
+
+                    @Override
+                    public void write(DataOutputStream out, Entry entry) throws IOException {
+                        out.writeLong(entry.size);
+                        out.writeLong(entry.lastModified);
+                        out.writeDouble(entry.integratedLufs);
+                        out.writeFloat(entry.peak);
+                        out.writeDouble(entry.gatedEnergy);
+                        out.writeInt(entry.gatedBlocks);
+                    }
+                }, this::measurementChanged);
+        this.indexer = new BackgroundIndexer("loudness-scanner", path -> scan(new File(path)));
+    }
+
+    private static double readTargetLufs() {
+        try {
+            return Double.parseDouble(System.getProperty(TARGET_PROPERTY, String.valueOf(DEFAULT_TARGET_LUFS)));
+        } catch (NumberFormatException e) {
+            return DEFAULT_TARGET_LUFS;
+        }
+    }
+
+    private static String folderOf(String path) {
+        int separator = path.lastIndexOf(File.separatorChar);
+        return separator <= 0 ? null : path.substring(0, separator);
+    }
+
+    // Only tracks with gated blocks take part in album gain.
+    private void measurementChanged(String path, Entry previous, Entry current) {
+        boolean wasPooled = previous != null && previous.gatedBlocks > 0;
+        boolean isPooled = current != null && current.gatedBlocks > 0;
+        String folder = folderOf(path);
+        if ((!wasPooled && !isPooled) || folder == null) {
+            return;
+        }
+        synchronized (albums) {
+            Album album = albums.computeIfAbsent(folder, key -> new Album());
+            if (isPooled) {
+                album.tracks.put(path, current);
+            } else {
+                album.tracks.remove(path);
+            }
+            if (album.tracks.isEmpty()) {
+                albums.remove(folder);
+            } else {
+                album.update();
+            }
+        }
+    }
+
+    public void enqueue(Collection<String> paths) {
+        if (mode == Mode.OFF) {
+            return;
+        }
+        // Held back until the log is read, or tracks measured last session would be decoded again.
+        log.whenLoaded(() -> indexer.enqueue(paths));
+    }
+
+    private void scan(File file) {
+        String path = file.getAbsolutePath();
+        long size = file.length();
+        long lastModified = file.lastModified();
+        Entry existing = log.get(path);
+        if (existing != null && existing.size == size && existing.lastModified == lastModified) {
+            skipped.incrementAndGet();
+            return;
+        }
+
+        long start = System.nanoTime();
+        Entry entry;
+        try (AudioInputStream source = AudioSystem.getAudioInputStream(file)) {
+            AudioFormat sourceFormat = source.getFormat();
+            AudioFormat pcmFormat = new AudioFormat(sourceFormat.getSampleRate(), 16,
+                    sourceFormat.getChannels(), true, false);
+            try (AudioInputStream pcm = AudioSystem.getAudioInputStream(pcmFormat, source)) {
+                LoudnessAnalyzer analyzer = new LoudnessAnalyzer(pcmFormat.getSampleRate(), pcmFormat.getChannels());
+                byte[] bytes = new byte[pcmFormat.getFrameSize() * 4_096];
+                float[] samples = new float[bytes.length / 2];
+                int read;
+                while (!closed && (read = pcm.read(bytes)) != -1) {
+                    int count = read / 2;
+                    for (int i = 0; i < count; i++) {
+                        samples[i] = (short) ((bytes[i * 2 + 1] << 8) | (bytes[i * 2] & 0xFF)) / 32768f;
+                    }
+                    analyzer.process(samples, count);
+                }
+                if (closed) {
+                    return;
+                }
+                LoudnessAnalyzer.Result result = analyzer.finish();
+                entry = new Entry(size, lastModified, result.getIntegratedLufs(), result.getPeak(),
+                        result.getGatedEnergy(), result.getGatedBlocks());
+            }
+        } catch (UnsupportedAudioFileException | IllegalArgumentException e) {
+            // Recorded as unmeasurable so the file is not decoded again until it changes.
+            entry = new Entry(size, lastModified, Double.NaN, 0f, 0.0, 0);
+        } catch (IOException e) {
+            return;
+        }
+        scanNanos.addAndGet(System.nanoTime() - start);
+        scanned.incrementAndGet();
+
+        log.put(path, entry);
+    }
+
+    // Linear factor to multiply the user's volume by. Tracks that have not been measured
+    // yet play at unity gain and are queued for scanning. Gain is limited so the measured
+    // peak never exceeds full scale.
+    public double gainFor(String path) {
+        if (mode == Mode.OFF) {
+            return 1.0;
+        }
+        Entry entry = log.get(path);
+        if (entry == null) {
+            enqueue(List.of(path));
+            return 1.0;
+        }
+        if (Double.isNaN(entry.integratedLufs) || Double.isInfinite(entry.integratedLufs)) {
+            return 1.0;
+        }
+
+        double loudness = entry.integratedLufs;
+        float peak = entry.peak;
+        if (mode == Mode.ALBUM) {
+            String folder = folderOf(path);
+            synchronized (albums) {
+                Album album = folder == null ? null : albums.get(folder);
+                if (album != null) {
+                    loudness = LoudnessAnalyzer.loudnessOf(album.energy / album.blocks);
+                    peak = Math.max(peak, album.peak);
+                }
+            }
+        }
+
+        double gain = Math.pow(10.0, (targetLufs - loudness) / 20.0);
+        if (peak > 0f) {
+            gain = Math.min(gain, 1.0 / peak);
+        }
+        return gain;
+    }
+
+    public Entry peek(String path) {
+        return log.get(path);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void shutdown() {
+        closed = true;
+        indexer.shutdown();
+    }
+
+    public int getPendingCount() {
+        return indexer.getPendingCount();
+    }
+
+    public long getScannedCount() {
+        return scanned.get();
+    }
+
+    public long getSkippedCount() {
+        return skipped.get();
+    }
+
+    // Tracks measured per minute of worker CPU time, i.e. per core.
+    public double getTracksPerMinutePerCore() {
+        long nanos = scanNanos.get();
+        return nanos == 0 ? 0.0 : scanned.get() * 60_000_000_000.0 / nanos;
+    }
+}
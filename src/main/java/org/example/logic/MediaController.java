@@ -9,23 +9,58 @@ import javafx.scene.media.MediaPlayer;
 import javafx.scene.media.MediaView;
 import javafx.util.Duration;
 import org.example.AppMusicPlayer;
+import org.example.user_interface.TimeDisplay;
 import org.example.user_interface.UIComponents;
 import org.example.user_interface.Visualization;
 
 import javax.swing.*;
 import java.awt.*;
 import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 public class MediaController {
     private final AppMusicPlayer app;
-    private MediaPlayer mediaPlayer;
+    public static final String ENGINE_PROPERTY = "playback.engine";
+    private volatile MediaPlayer mediaPlayer;
+    // Volatile because the metrics thread reads it as well.
+    private volatile PlaybackEngine pcmEngine;
+    // Set while the PCM engine is being opened on a loader thread; a play request in that
+    // window starts it once it is handed over.
+    private volatile boolean pcmLoading;
+    private volatile boolean playWhenLoaded;
+    private final boolean pcmEngineEnabled = "pcm".equalsIgnoreCase(System.getProperty(ENGINE_PROPERTY));
     private Media media;
     private MediaView mediaView;
-    private boolean isMuted = false;
+    // Volume slider level and mute as last set on the EDT, for players set up on the FX thread.
+    private volatile double sliderVolume;
+    private volatile boolean isMuted = false;
     private boolean isDragging = false;
     private final Visualization visualization;
+    private final UiDispatcher uiDispatcher;
+    private final TrackPreloader trackPreloader;
+    private final MediaLoader mediaLoader;
+    private final SeekCoalescer seekCoalescer;
     private boolean visualizationActive = true;
     private boolean isVideo = false;
+    // Loudness normalization factor for the current track, applied on top of the volume slider.
+    private volatile double trackGain = 1.0;
+    private final LatencyHistogram loadLatency;
+    private final LatencyHistogram firstAudioLatency;
+    private final LatencyHistogram transitionLatency;
+    private final LatencyHistogram seekLatency;
+    private final LatencyHistogram frameLatency;
+    private final LongAdder spectrumCallbacks;
+    private final LongAdder fallbackTransitions;
+    private volatile long loadStartNanos;
+    private volatile long firstAudioFromNanos;
+    private final AtomicReference<String> unplayedPath = new AtomicReference<>();
+    private volatile boolean awaitingFirstAudio = false;
+    // Start of an end-of-track transition that fell back to a full load; 0 when none is pending.
+    private final AtomicLong unpreparedTransitionFrom = new AtomicLong();
     private static final String[] SUPPORTED_EXTENSIONS = {
             ".mp3", ".wav", ".aac", ".m4a",
             ".mp4", ".avi", ".mkv", ".mov"
@@ -34,6 +69,38 @@ public class MediaController {
     public MediaController(AppMusicPlayer app) {
         this.app = app;
         this.visualization = new Visualization();
+        this.uiDispatcher = new UiDispatcher(app.getUIComponents());
+        this.trackPreloader = new TrackPreloader();
+        this.mediaLoader = new MediaLoader();
+        this.seekCoalescer = new SeekCoalescer(this::applySeek);
+        this.sliderVolume = app.getUIComponents().getVolumeSlider().getValue() / 100.0;
+
+        MetricsRegistry metrics = app.getMetrics();
+        loadLatency = metrics.histogram("media.load.nanos");
+        firstAudioLatency = metrics.histogram("playback.first_audio.nanos");
+        transitionLatency = metrics.histogram("playback.transition.nanos");
+        seekLatency = metrics.histogram("playback.seek.nanos");
+        frameLatency = metrics.histogram("visualization.frame.nanos");
+        spectrumCallbacks = metrics.counter("visualization.spectrum.callbacks");
+        fallbackTransitions = metrics.counter("playback.transition.unprepared");
+        seekCoalescer.setListener((target, latency) -> {
+            seekLatency.record(latency);
+            PlaybackEvents.Seek event = new PlaybackEvents.Seek();
+            if (event.shouldCommit()) {
+                event.targetMillis = target;
+                event.latency = latency;
+                event.commit();
+            }
+        });
+        visualization.setFrameListener(nanos -> {
+            frameLatency.record(nanos);
+            PlaybackEvents.VisualizationFrame event = new PlaybackEvents.VisualizationFrame();
+            if (event.shouldCommit()) {
+                event.backend = visualization.getBackend().name();
+                event.renderTime = nanos;
+                event.commit();
+            }
+        });
         initializeJFXPanel();
     }
 
@@ -62,6 +129,7 @@ public class MediaController {
     }
 
     public void loadMediaFile(String filePath) {
+        unpreparedTransitionFrom.set(0);
         stopMedia();
 
         if (filePath == null || filePath.isEmpty()) {
@@ -72,11 +140,18 @@ public class MediaController {
             return;
         }
 
-        app.getUIComponents().setStatus("Loading...");
+        uiDispatcher.submitStatus("Loading...");
+        loadStartNanos = System.nanoTime();
+        firstAudioFromNanos = loadStartNanos;
+        awaitingFirstAudio = true;
+        unplayedPath.set(filePath);
         updateTimeLabel(Duration.ZERO, Duration.ZERO);
 
         File file = new File(filePath);
-        if (!file.exists()) {
+        // Only the cached status is consulted here; a file nobody has checked yet is found
+        // missing by the loader thread instead of by a stat on the calling thread.
+        FileStatusService.Entry status = app.getFileStatus().lookup(filePath);
+        if (status != null && !status.exists()) {
             SwingUtilities.invokeLater(() -> {
                 app.getUIComponents().setStatus("File not found");
                 showErrorDialog("The selected file no longer exists: " + filePath);
@@ -88,111 +163,371 @@ public class MediaController {
             return;
         }
 
-        new Thread(() -> {
-            try {
-                media = new Media(file.toURI().toString());
-                isVideo = isVideoFile(filePath);
-
-                Platform.runLater(() -> {
-                    try {
-                        mediaPlayer = new MediaPlayer(media);
-                        mediaView.setMediaPlayer(mediaPlayer);
-
-                        mediaPlayer.setOnReady(() -> {
-                            Duration duration = media.getDuration();
-                            SwingUtilities.invokeLater(() -> {
-                                UIComponents ui = app.getUIComponents();
-                                ui.setNowPlaying(file.getName());
-                                ui.setStatus("Ready to play");
-                                ui.getPlayPauseButton().setEnabled(true);
-                                ui.getStopButton().setEnabled(true);
-                                updateTimeLabel(Duration.ZERO, duration);
-
-                                if (isVideo) {
-                                    mediaView.setFitWidth(640);
-                                    mediaView.setFitHeight(360);
-                                    visualization.getRoot().setVisible(false);
-                                } else {
-                                    mediaView.setFitWidth(0);
-                                    mediaView.setFitHeight(0);
-                                    visualization.getRoot().setVisible(true);
-                                    if (visualizationActive) {
-                                        enableVisualization();
-                                    }
-                                }
-                            });
-                        });
-                        mediaPlayer.setVolume(app.getUIComponents().getVolumeSlider().getValue() / 100.0);
-                        setupMediaPlayerEvents();
+        showWaveform(filePath);
+        trackGain = app.getLoudnessScanner().gainFor(file.getAbsolutePath());
+        // Without a known status the entry is shown unvalidated; the loader thread reads the
+        // file's size and mtime, and it is checked against them once the media is loaded.
+        MetadataCache.Entry cached = status == null ? app.getMetadataCache().peek(file.getAbsolutePath())
+                : app.getMetadataCache().lookup(file.getAbsolutePath(), status.getSize(), status.getLastModified());
+        if (cached != null) {
+            updateTimeLabel(Duration.ZERO, Duration.millis(cached.getDurationMillis()));
+        }
+
+        if (pcmEngineEnabled && filePath.toLowerCase().endsWith(".wav")) {
+            boolean fromCache = cached != null;
+            pcmLoading = true;
+            mediaLoader.submit(generation -> loadWithPcmEngine(file, fromCache, generation));
+            return;
+        }
 
-                    } catch (Exception e) {
+        mediaLoader.load(file, new MediaLoader.LoadListener() {
+            @Override
+            public void onLoaded(long generation, Media loadedMedia, long size, long lastModified) {
+                boolean fresh = app.getMetadataCache()
+                        .lookup(file.getAbsolutePath(), size, lastModified) != null;
+                try {
+                    MediaPlayer player = new MediaPlayer(loadedMedia);
+                    // stopMedia() or a newer load may have come in while the player was built.
+                    // They only dispose the player they can see, so it is installed under the
+                    // loader's lock or not at all.
+                    if (!mediaLoader.handOver(generation, () -> {
+                        media = loadedMedia;
+                        mediaPlayer = player;
+                    })) {
+                        player.dispose();
+                        return;
+                    }
+                    isVideo = isVideoFile(filePath);
+                    mediaView.setMediaPlayer(player);
+
+                    player.setOnReady(() -> {
+                        mediaLoader.markReady(generation);
+                        recordLoad(filePath, "javafx", fresh);
+                        unpreparedTransitionReady(filePath);
+                        Duration duration = loadedMedia.getDuration();
+                        if (!fresh) {
+                            rememberMetadata(file.getAbsolutePath(), size, lastModified, loadedMedia, isVideo);
+                        }
+                        uiDispatcher.submitNowPlaying(file.getName());
+                        uiDispatcher.submitStatus("Ready to play");
+                        updateTimeLabel(Duration.ZERO, duration);
                         SwingUtilities.invokeLater(() -> {
-                            app.getUIComponents().setStatus("Load failed");
-                            showErrorDialog("Error initializing player: " + e.getMessage());
+                            UIComponents ui = app.getUIComponents();
+                            ui.getPlayPauseButton().setEnabled(true);
+                            ui.getStopButton().setEnabled(true);
+
+                            if (isVideo) {
+                                mediaView.setFitWidth(640);
+                                mediaView.setFitHeight(360);
+                                visualization.getRoot().setVisible(false);
+                            } else {
+                                mediaView.setFitWidth(0);
+                                mediaView.setFitHeight(0);
+                                visualization.getRoot().setVisible(true);
+                                if (visualizationActive) {
+                                    enableVisualization();
+                                }
+                            }
                         });
-                    }
-                });
-            } catch (Exception e) {
+                    });
+                    player.setVolume(playbackVolume(trackGain));
+                    setupMediaPlayerEvents(player);
+
+                } catch (Exception e) {
+                    SwingUtilities.invokeLater(() -> {
+                        app.getUIComponents().setStatus("Load failed");
+                        showErrorDialog("Error initializing player: " + e.getMessage());
+                    });
+                }
+            }
+
+            @Override
+            public void onFailed(Exception e) {
+                if (!app.getFileStatus().check(filePath).exists()) {
+                    SwingUtilities.invokeLater(() -> app.getPlaylistManager().fileMissing(filePath));
+                    return;
+                }
                 SwingUtilities.invokeLater(() -> {
                     app.getUIComponents().setStatus("Load error");
                     showErrorDialog("Could not load media: " + e.getMessage());
                 });
             }
-        }).start();
+        });
     }
 
 
-    private void setupMediaPlayerEvents() {
-        mediaPlayer.currentTimeProperty().addListener((obs, oldTime, newTime) -> {
+    private void setupMediaPlayerEvents(MediaPlayer player) {
+        player.currentTimeProperty().addListener((obs, oldTime, newTime) -> {
+            seekCoalescer.positionReported((long) newTime.toMillis());
             if (!isDragging && media != null) {
                 Duration duration = media.getDuration();
                 if (duration != null && !duration.isUnknown()) {
-                    double progress = newTime.toMillis() / duration.toMillis();
-                    app.getUIComponents().getProgressSlider().setValue((int) (progress * 100));
                     updateTimeLabel(newTime, duration);
+                    preloadNextTrackIfDue(newTime, duration);
                 }
             }
         });
-        mediaPlayer.setOnPaused(() -> updateStatus("Paused"));
-        mediaPlayer.setOnStopped(() -> updateStatus("Stopped"));
-        mediaPlayer.setOnEndOfMedia(() -> app.getPlaylistManager().playNextTrack());
-        mediaPlayer.setOnError(() -> showError("Playback error: " + mediaPlayer.getError()));
-
-        mediaPlayer.currentTimeProperty().addListener((obs, oldTime, newTime) -> {
-            if (!isDragging && media != null) {
-                double progress = newTime.toMillis() / media.getDuration().toMillis();
-                app.getUIComponents().getProgressSlider().setValue((int) (progress * 100));
-                updateTimeLabel(newTime, media.getDuration());
+        player.statusProperty().addListener((obs, oldStatus, newStatus) -> {
+            if (newStatus == MediaPlayer.Status.PLAYING) {
+                firstAudio();
             }
         });
+        player.setOnPaused(() -> updateStatus("Paused"));
+        player.setOnStopped(() -> updateStatus("Stopped"));
+        player.setOnEndOfMedia(() -> SwingUtilities.invokeLater(() -> app.getPlaylistManager().trackFinished()));
+        player.setOnError(() -> showError("Playback error: " + player.getError()));
 
-        if (mediaPlayer != null) {
-            mediaPlayer.setMute(isMuted);
+        player.setMute(isMuted);
+        SwingUtilities.invokeLater(() -> {
+            app.getUIComponents().getMuteButton().setText(isMuted ? "Unmute" : "Mute");
+        });
+
+        if (visualizationActive && !isVideo) {
+            enableVisualization();
+        }
+    }
+
+    // Runs on a loader thread, since mapping the file and opening the line can take a while.
+    // The engine is handed to the EDT, or closed if another load came in meanwhile.
+    private void loadWithPcmEngine(File file, boolean cached, long generation) {
+        PlaybackEngine engine;
+        try {
+            engine = new WavPcmEngine(file);
+        } catch (Exception e) {
+            if (!mediaLoader.isCurrent(generation)) {
+                return;
+            }
+            if (!app.getFileStatus().check(file.getPath()).exists()) {
+                SwingUtilities.invokeLater(() -> app.getPlaylistManager().fileMissing(file.getPath()));
+                return;
+            }
             SwingUtilities.invokeLater(() -> {
-                app.getUIComponents().getMuteButton().setText(isMuted ? "Unmute" : "Mute");
+                app.getUIComponents().setStatus("Load error");
+                showErrorDialog("Could not load media: " + e.getMessage());
             });
+            return;
         }
+        SwingUtilities.invokeLater(() -> {
+            if (!mediaLoader.handOver(generation, () -> pcmEngine = engine)) {
+                engine.close();
+                return;
+            }
+            pcmLoading = false;
+            long totalMillis = engine.getDurationMillis();
+            engine.setVolume(playbackVolume(trackGain));
+            engine.setMute(isMuted);
+            engine.setPositionListener(millis -> {
+                seekCoalescer.positionReported(millis);
+                if (engine.isPlaying()) {
+                    firstAudio();
+                }
+                if (!isDragging) {
+                    updateTimeLabel(millis, totalMillis);
+                }
+            });
+            engine.setOnEndOfMedia(() -> SwingUtilities.invokeLater(() -> app.getPlaylistManager().trackFinished()));
+            recordLoad(file.getAbsolutePath(), "pcm", cached);
+            unpreparedTransitionReady(file.getAbsolutePath());
+            isVideo = false;
+            if (visualizationActive) {
+                enableVisualization();
+            }
 
-        if (visualizationActive && !isVideo) {
-            enableVisualization();
+            uiDispatcher.submitNowPlaying(file.getName());
+            uiDispatcher.submitStatus("Ready to play");
+            updateTimeLabel(0, totalMillis);
+            app.getUIComponents().getPlayPauseButton().setEnabled(true);
+            app.getUIComponents().getStopButton().setEnabled(true);
+            if (playWhenLoaded) {
+                playWhenLoaded = false;
+                engine.play();
+            }
+        });
+    }
+
+    private void recordLoad(String path, String engine, boolean cached) {
+        long latency = System.nanoTime() - loadStartNanos;
+        loadLatency.record(latency);
+        PlaybackEvents.MediaLoad event = new PlaybackEvents.MediaLoad();
+        if (event.shouldCommit()) {
+            event.path = path;
+            event.engine = engine;
+            event.latency = latency;
+            event.cached = cached;
+            event.commit();
+        }
+    }
+
+    // Time to first audio runs from the later of the load and the play request.
+    private void markPlayRequested() {
+        if (awaitingFirstAudio) {
+            firstAudioFromNanos = System.nanoTime();
+        }
+    }
+
+    private void firstAudio() {
+        if (awaitingFirstAudio) {
+            awaitingFirstAudio = false;
+            firstAudioLatency.record(System.nanoTime() - firstAudioFromNanos);
+        }
+        // Counted once per load, so pausing and resuming is not another play.
+        String played = unplayedPath.getAndSet(null);
+        if (played != null) {
+            SwingUtilities.invokeLater(() -> app.getPlaylistManager().trackPlayed(played));
+        }
+    }
+
+    private void showWaveform(String filePath) {
+        SwingUtilities.invokeLater(() -> app.getUIComponents().getProgressSlider().setWaveform(null));
+        app.getPeakIndexer().request(filePath, pyramid -> SwingUtilities.invokeLater(() -> {
+            if (filePath.equals(app.getPlaylistManager().getCurrentFilePath())) {
+                app.getUIComponents().getProgressSlider().setWaveform(pyramid);
+            }
+        }));
+    }
+
+    private void rememberMetadata(String path, long size, long lastModified, Media loadedMedia, boolean video) {
+        Duration duration = loadedMedia.getDuration();
+        if (duration == null || duration.isUnknown() || duration.isIndefinite()) {
+            return;
+        }
+        Map<String, String> tags = new LinkedHashMap<>();
+        loadedMedia.getMetadata().forEach((key, value) -> {
+            if (value instanceof String || value instanceof Number) {
+                tags.put(key, value.toString());
+            }
+        });
+        if (app.getMetadataCache().put(path, size, lastModified, (long) duration.toMillis(), video, tags)) {
+            SwingUtilities.invokeLater(() -> app.getPlaylistManager().metadataUpdated(path));
+        }
+    }
+
+    private void preloadNextTrackIfDue(Duration current, Duration total) {
+        if (!trackPreloader.isEnabled()) {
+            return;
+        }
+        String nextPath = app.getPlaylistManager().getPreloadCandidate();
+        if (trackPreloader.shouldPreload(nextPath, current.toMillis(), total.toMillis())
+                && app.getFileStatus().status(nextPath) == FileStatusService.Status.PRESENT) {
+            trackPreloader.prepare(nextPath, mediaLoader);
+        }
+    }
+
+    public void loadNextMediaFile(String filePath) {
+        if (!trackPreloader.isReadyFor(filePath)) {
+            long start = System.nanoTime();
+            fallbackTransitions.increment();
+            loadMediaFile(filePath);
+            unpreparedTransitionFrom.set(start);
+            return;
+        }
+        trackPreloader.markTransitionStart();
+        if (Platform.isFxApplicationThread()) {
+            swapInPreloaded(filePath);
+        } else {
+            Platform.runLater(() -> swapInPreloaded(filePath));
+        }
+    }
+
+    private void swapInPreloaded(String filePath) {
+        MediaPlayer next = trackPreloader.take(filePath);
+        if (next == null) {
+            loadMediaFile(filePath);
+            return;
+        }
+
+        long generation = mediaLoader.invalidate();
+        trackGain = app.getLoudnessScanner().gainFor(filePath);
+        // Applied now rather than when it was prepared, in case the slider moved since.
+        next.setVolume(playbackVolume(trackGain));
+        // Same hand-over as a regular load, so a stop arriving meanwhile cannot miss the player.
+        MediaPlayer[] previous = new MediaPlayer[1];
+        if (!mediaLoader.handOver(generation, () -> {
+            previous[0] = mediaPlayer;
+            mediaPlayer = next;
+            media = next.getMedia();
+        })) {
+            next.dispose();
+            return;
+        }
+        unplayedPath.set(filePath);
+        isVideo = isVideoFile(filePath);
+        mediaView.setMediaPlayer(next);
+        if (isVideo) {
+            mediaView.setFitWidth(640);
+            mediaView.setFitHeight(360);
+            visualization.getRoot().setVisible(false);
+        } else {
+            mediaView.setFitWidth(0);
+            mediaView.setFitHeight(0);
+        }
+        setupMediaPlayerEvents(next);
+        next.setOnPlaying(() -> {
+            trackPreloader.markTransitionEnd();
+            recordTransition(filePath, true, trackPreloader.getLastTransitionNanos());
+            next.setOnPlaying(null);
+        });
+        next.play();
+
+        if (previous[0] != null) {
+            previous[0].stop();
+            previous[0].dispose();
+        }
+
+        showWaveform(filePath);
+        uiDispatcher.submitNowPlaying(new File(filePath).getName());
+        uiDispatcher.submitStatus("Playing");
+        updateTimeLabel(Duration.ZERO, next.getMedia().getDuration());
+    }
+
+    // A transition without a prepared player ends once the next track is ready to play, the
+    // closest it gets to the swap; nothing starts playback on its own after a plain load.
+    private void unpreparedTransitionReady(String path) {
+        long start = unpreparedTransitionFrom.getAndSet(0);
+        if (start != 0) {
+            recordTransition(path, false, System.nanoTime() - start);
+        }
+    }
+
+    private void recordTransition(String path, boolean preloaded, long gap) {
+        transitionLatency.record(gap);
+        PlaybackEvents.TrackTransition event = new PlaybackEvents.TrackTransition();
+        if (event.shouldCommit()) {
+            event.path = path;
+            event.preloaded = preloaded;
+            event.gap = gap;
+            event.commit();
         }
     }
 
     private void updateStatus(String status) {
-        UIComponents ui = app.getUIComponents();
-        ui.getStatusLabel().setText(status);
-        ui.getPlayPauseButton().setText("Play");
+        uiDispatcher.submitIdleStatus(status);
     }
 
     public void playMedia() {
-        if (mediaPlayer != null) {
+        markPlayRequested();
+        if (pcmEngine != null) {
+            pcmEngine.play();
+        } else if (mediaPlayer != null) {
             mediaPlayer.play();
+        } else if (pcmLoading) {
+            playWhenLoaded = true;
         } else if (!app.getPlaylistManager().getMediaFiles().isEmpty()) {
             loadMediaFile(app.getPlaylistManager().getCurrentFilePath());
         }
     }
 
     public void togglePlayPause() {
+        if (pcmEngine != null) {
+            if (pcmEngine.isPlaying()) {
+                pcmEngine.pause();
+                updateStatus("Paused");
+            } else {
+                markPlayRequested();
+                pcmEngine.play();
+            }
+            return;
+        }
         if (mediaPlayer == null) {
             playMedia();
             return;
@@ -201,28 +536,37 @@ public class MediaController {
         if (mediaPlayer.getStatus() == MediaPlayer.Status.PLAYING) {
             mediaPlayer.pause();
         } else {
+            markPlayRequested();
             mediaPlayer.play();
         }
     }
 
     public void pauseMedia() {
-        if (mediaPlayer != null) {
+        if (pcmEngine != null) {
+            pcmEngine.pause();
+        } else if (mediaPlayer != null) {
             mediaPlayer.pause();
         }
     }
 
     public void stopMedia() {
+        mediaLoader.invalidate();
+        pcmLoading = false;
+        playWhenLoaded = false;
+        discardPreloadedTrack();
+        closePcmEngine();
         if (mediaPlayer != null) {
             mediaPlayer.stop();
             mediaPlayer.dispose();
             mediaPlayer = null;
         }
-        app.getUIComponents().getProgressSlider().setValue(0);
         updateTimeLabel(Duration.ZERO, Duration.ZERO);
     }
 
     public void toggleMute() {
-        if (mediaPlayer != null) {
+        if (pcmEngine != null) {
+            setMute(!isMuted);
+        } else if (mediaPlayer != null) {
             isMuted = !isMuted;
             mediaPlayer.setMute(isMuted);
             app.getUIComponents().getMuteButton().setText(isMuted ? "Unmute" : "Mute");
@@ -231,45 +575,96 @@ public class MediaController {
     }
 
     public void setMute(boolean mute) {
-        if (mediaPlayer != null) {
+        if (pcmEngine != null || mediaPlayer != null) {
             isMuted = mute;
-            mediaPlayer.setMute(isMuted);
+            if (pcmEngine != null) {
+                pcmEngine.setMute(isMuted);
+            } else {
+                mediaPlayer.setMute(isMuted);
+            }
             app.getUIComponents().getMuteButton().setText(isMuted ? "Unmute" : "Mute");
             app.getUIComponents().setStatus(isMuted ? "Muted" : "Unmuted");
         }
     }
 
+    public void setVolume(double volume) {
+        sliderVolume = volume;
+        double gained = Math.min(1.0, volume * trackGain);
+        if (pcmEngine != null) {
+            pcmEngine.setVolume(gained);
+        } else if (mediaPlayer != null) {
+            mediaPlayer.setVolume(gained);
+        }
+    }
+
+    // Players cannot amplify past 1.0, so positive gains only help when the slider is below max.
+    // Any thread; reads the snapshot instead of the Swing slider.
+    private double playbackVolume(double gain) {
+        return Math.min(1.0, sliderVolume * gain);
+    }
+
+    public boolean isPlaying() {
+        if (pcmEngine != null) {
+            return pcmEngine.isPlaying();
+        }
+        return mediaPlayer != null && mediaPlayer.getStatus() == MediaPlayer.Status.PLAYING;
+    }
+
+    public boolean hasLoadedMedia() {
+        return pcmEngine != null || mediaPlayer != null;
+    }
+
+    // Drag end: applies the slider position immediately.
     public void seekMedia() {
-        if (mediaPlayer != null && media != null) {
-            double seekMillis = app.getUIComponents().getProgressSlider().getValue() / 100.0 * media.getDuration().toMillis();
-            mediaPlayer.seek(new Duration(seekMillis));
+        if (hasLoadedMedia()) {
+            seekCoalescer.commit(app.getUIComponents().getProgressSlider().getPositionMillis());
+        }
+    }
+
+    // During a drag: only the latest position is applied, after a short debounce.
+    public void scrubMedia() {
+        if (hasLoadedMedia()) {
+            seekCoalescer.request(app.getUIComponents().getProgressSlider().getPositionMillis());
+        }
+    }
+
+    private void applySeek(long millis) {
+        if (pcmEngine != null) {
+            pcmEngine.seek(millis);
+        } else if (mediaPlayer != null) {
+            mediaPlayer.seek(Duration.millis(millis));
         }
     }
 
     public void updateTimeLabel(Duration current, Duration total) {
-        String currentText = formatTime(current);
-        String totalText = formatTime(total);
-        app.getUIComponents().getTimeLabel().setText(currentText + " / " + totalText);
+        uiDispatcher.submitDuration(total);
+        uiDispatcher.submitPosition(current);
     }
 
+    // Position ticks from the PCM engine arrive as plain millis; no Duration per tick.
+    public void updateTimeLabel(long currentMillis, long totalMillis) {
+        uiDispatcher.submitDuration(totalMillis);
+        uiDispatcher.submitPosition(currentMillis);
+    }
 
-    private String formatTime(Duration duration) {
-        if (duration == null || duration.isUnknown()) {
-            return "00:00";
-        }
-        int minutes = (int) duration.toMinutes();
-        int seconds = (int) (duration.toSeconds() % 60);
-        return String.format("%02d:%02d", minutes, seconds);
+    public static String formatTime(long millis) {
+        return TimeDisplay.format(millis);
     }
 
     public void toggleVisualization() {
         if (!isVideo) {
             visualizationActive = !visualizationActive;
-            if (mediaPlayer != null) {
+            if (mediaPlayer != null || pcmEngine != null) {
                 if (visualizationActive) {
                     enableVisualization();
                 } else {
-                    mediaPlayer.setAudioSpectrumListener(null);
+                    if (mediaPlayer != null) {
+                        mediaPlayer.setAudioSpectrumListener(null);
+                    }
+                    if (pcmEngine != null) {
+                        pcmEngine.setSpectrumAnalyzer(null);
+                    }
+                    visualization.stop();
                     visualization.getRoot().setVisible(false);
                 }
             }
@@ -277,18 +672,46 @@ public class MediaController {
     }
 
     private void enableVisualization() {
-        if (mediaPlayer != null && !isVideo) {
-            mediaPlayer.setAudioSpectrumListener((timestamp, duration, magnitudes, phases) ->
-                    Platform.runLater(() -> visualization.update(magnitudes))
-            );
-            mediaPlayer.setAudioSpectrumNumBands(64);
-            mediaPlayer.setAudioSpectrumInterval(0.1);
-            mediaPlayer.setAudioSpectrumThreshold(-60);
+        if (pcmEngine != null) {
+            SpectrumAnalyzer analyzer = SpectrumAnalyzer.fromSystemProperties(pcmEngine.getSampleRate(),
+                    visualization.getBandCount(), visualization.getThresholdDb());
+            analyzer.setListener(magnitudes -> {
+                spectrumCallbacks.increment();
+                visualization.submit(magnitudes);
+            });
+            pcmEngine.setSpectrumAnalyzer(analyzer);
+            visualization.getRoot().setVisible(true);
+            visualization.start();
+        } else if (mediaPlayer != null && !isVideo) {
+            mediaPlayer.setAudioSpectrumListener((timestamp, duration, magnitudes, phases) -> {
+                spectrumCallbacks.increment();
+                visualization.submit(magnitudes);
+            });
+            mediaPlayer.setAudioSpectrumNumBands(visualization.getBandCount());
+            mediaPlayer.setAudioSpectrumInterval(1.0 / SpectrumAnalyzer.updatesPerSecondFromSystemProperty());
+            mediaPlayer.setAudioSpectrumThreshold((int) visualization.getThresholdDb());
             visualization.getRoot().setVisible(true);
+            visualization.start();
+        }
+    }
+
+    private void closePcmEngine() {
+        if (pcmEngine != null) {
+            pcmEngine.close();
+            pcmEngine = null;
         }
     }
 
+    public PlaybackEngine getPcmEngine() {
+        return pcmEngine;
+    }
+
     public void cleanup() {
+        mediaLoader.invalidate();
+        seekCoalescer.cancel();
+        closePcmEngine();
+        visualization.stop();
+        discardPreloadedTrack();
         if (mediaPlayer != null) {
             mediaPlayer.stop();
             mediaPlayer.dispose();
@@ -310,6 +733,34 @@ public class MediaController {
         return mediaPlayer;
     }
 
+    public Visualization getVisualization() {
+        return visualization;
+    }
+
+    public SeekCoalescer getSeekCoalescer() {
+        return seekCoalescer;
+    }
+
+    public MediaLoader getMediaLoader() {
+        return mediaLoader;
+    }
+
+    public TrackPreloader getTrackPreloader() {
+        return trackPreloader;
+    }
+
+    private void discardPreloadedTrack() {
+        if (Platform.isFxApplicationThread()) {
+            trackPreloader.discard();
+        } else {
+            Platform.runLater(trackPreloader::discard);
+        }
+    }
+
+    public UiDispatcher getUiDispatcher() {
+        return uiDispatcher;
+    }
+
     public void openFileChooser() {
         JFileChooser fileChooser = new JFileChooser();
         String desktopPath = System.getProperty("user.home") + File.separator + "Desktop";
@@ -363,8 +814,8 @@ public class MediaController {
                 lowercasePath.endsWith(".mkv") || lowercasePath.endsWith(".mov");
     }
 
-    private boolean isSupported(File file) {
-        String name = file.getName().toLowerCase();
+    public static boolean isSupportedFileName(String fileName) {
+        String name = fileName.toLowerCase();
         for (String extension : SUPPORTED_EXTENSIONS) {
             if (name.endsWith(extension)) {
                 return true;
@@ -0,0 +1,176 @@
+package org.example.logic;
+
+import javafx.application.Platform;
+import javafx.scene.media.Media;
+
+import java.io.File;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+// Builds Media objects off the UI threads. Every request gets a generation number and
+// anything older than the newest request is dropped before it can create a player.
+public class MediaLoader {
+    private static final int THREADS = 2;
+    private static final int QUEUE_CAPACITY = 16;
+
+    public interface LoadListener {
+        // Size and mtime are read on the loader thread, so callers can validate cached
+        // metadata without a stat of their own.
+        void onLoaded(long generation, Media media, long size, long lastModified);
+
+        void onFailed(Exception e);
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong cancellations = new AtomicLong();
+    private final AtomicLong completedLoads = new AtomicLong();
+    private final AtomicLong totalLoadNanos = new AtomicLong();
+    private volatile long lastLoadNanos;
+    private volatile long requestedAtNanos;
+    private Future<?> pending;
+
+    public MediaLoader() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(THREADS, THREADS, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "media-loader-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (task, pool) -> {
+                    // The oldest queued load is the least wanted; dropping it is a cancellation too.
+                    if (!pool.isShutdown()) {
+                        if (pool.getQueue().poll() != null) {
+                            cancellations.incrementAndGet();
+                        }
+                        pool.execute(task);
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public long load(File file, LoadListener listener) {
+        return submit(requested -> {
+            try {
+                long size = file.length();
+                long lastModified = file.lastModified();
+                Media media = new Media(file.toURI().toString());
+                if (isSuperseded(requested)) {
+                    return;
+                }
+                Platform.runLater(() -> {
+                    if (!isSuperseded(requested)) {
+                        listener.onLoaded(requested, media, size, lastModified);
+                    }
+                });
+            } catch (Exception e) {
+                if (!isSuperseded(requested)) {
+                    listener.onFailed(e);
+                }
+            }
+        });
+    }
+
+    // Builds media for the gapless preloader on the same threads. It does not supersede the
+    // current load; the preloader ignores media for a track it no longer wants.
+    public void preload(File file, Consumer<Media> onLoaded) {
+        executor.execute(() -> {
+            try {
+                Media media = new Media(file.toURI().toString());
+                Platform.runLater(() -> onLoaded.accept(media));
+            } catch (Exception e) {
+                System.err.println("Failed to preload " + file + ": " + e.getMessage());
+            }
+        });
+    }
+
+    // Runs any other kind of load, e.g. opening the PCM engine, under the same rules. The
+    // task gets its generation and should check isCurrent() before handing anything over.
+    public synchronized long submit(LongConsumer task) {
+        long requested = generation.incrementAndGet();
+        requestedAtNanos = System.nanoTime();
+
+        if (pending != null && pending.cancel(false)) {
+            cancellations.incrementAndGet();
+            // A cancelled task stays queued until a worker reaches it; drop it so it neither
+            // counts toward the queue depth nor pushes out a live one.
+            executor.purge();
+        }
+        pending = executor.submit(() -> {
+            if (!isSuperseded(requested)) {
+                task.accept(requested);
+            }
+        });
+        return requested;
+    }
+
+    // Installs what a load produced if it is still the newest request. Holding the same lock
+    // as invalidate() means a stop either sees the installed result or makes this return
+    // false, in which case the caller disposes of it.
+    public synchronized boolean handOver(long requested, Runnable install) {
+        if (!isCurrent(requested)) {
+            return false;
+        }
+        install.run();
+        return true;
+    }
+
+    public boolean isCurrent(long requested) {
+        return generation.get() == requested;
+    }
+
+    private boolean isSuperseded(long requested) {
+        if (isCurrent(requested)) {
+            return false;
+        }
+        cancellations.incrementAndGet();
+        return true;
+    }
+
+    public void markReady(long requested) {
+        if (isCurrent(requested)) {
+            long elapsed = System.nanoTime() - requestedAtNanos;
+            lastLoadNanos = elapsed;
+            totalLoadNanos.addAndGet(elapsed);
+            completedLoads.incrementAndGet();
+        }
+    }
+
+    // Returns the new generation, for a caller that installs something of its own.
+    public synchronized long invalidate() {
+        return generation.incrementAndGet();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public long getCancellationCount() {
+        return cancellations.get();
+    }
+
+    public long getCompletedLoadCount() {
+        return completedLoads.get();
+    }
+
+    public long getLastLoadNanos() {
+        return lastLoadNanos;
+    }
+
+    public long getAverageLoadNanos() {
+        long count = completedLoads.get();
+        return count == 0 ? 0 : totalLoadNanos.get() / count;
+    }
+}
@@ -0,0 +1,264 @@
+package org.example.logic;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Persistent track metadata keyed by path, size and mtime, stored as an append-only log.
+// The newest record for a path wins; the log is compacted on startup once stale records
+// outnumber live ones. The log is read in the background, so startup never waits on it;
+// until then lookups miss, and whenLoaded() lets callers wait for it. Play counts live in a
+// second log next to it; they belong to the path rather than the file version, so they are
+// kept when a file is re-tagged or re-encoded.
+public class MetadataCache {
+    public static final String DATA_DIR_PROPERTY = "player.dataDir";
+    private static final int MAGIC = 0x4D505443;
+    private static final int VERSION = 1;
+    private static final String LOG_NAME = "metadata.log";
+    private static final int PLAYS_MAGIC = 0x4D50504C;
+    private static final int PLAYS_VERSION = 1;
+    private static final String PLAYS_LOG_NAME = "plays.log";
+    // writeUTF takes at most 65535 encoded bytes and a char encodes to at most three.
+    private static final int MAX_TAG_CHARS = 65_535 / 3;
+
+    public static final class Plays {
+        private final int count;
+        private final long lastPlayedMillis;
+
+        public Plays(int count, long lastPlayedMillis) {
+            this.count = count;
+            this.lastPlayedMillis = lastPlayedMillis;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public long getLastPlayedMillis() {
+            return lastPlayedMillis;
+        }
+    }
+
+    public static final class Entry {
+        private final long size;
+        private final long lastModified;
+        private final long durationMillis;
+        private final boolean video;
+        private final String container;
+        private final Map<String, String> tags;
+
+        public Entry(long size, long lastModified, long durationMillis, boolean video,
+                     String container, Map<String, String> tags) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.durationMillis = durationMillis;
+            this.video = video;
+            this.container = container;
+            this.tags = Collections.unmodifiableMap(new LinkedHashMap<>(tags));
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        public boolean isVideo() {
+            return video;
+        }
+
+        public String getContainer() {
+            return container;
+        }
+
+        public Map<String, String> getTags() {
+            return tags;
+        }
+    }
+
+    private final AppendLog<Entry> log;
+    private final AppendLog<Plays> plays;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public MetadataCache() {
+        this(defaultDataDir());
+    }
+
+    public MetadataCache(File dataDir) {
+        this.log = new AppendLog<>(new File(dataDir, LOG_NAME), MAGIC, VERSION, "metadata cache",
+                new AppendLog.Codec<>() {
+                    @Override
+                    public Entry read(DataInputStream in) throws IOException {
+                        return readEntry(in);
+                    }
+
+                    @Override
+                    public void write(DataOutputStream out, Entry entry) throws IOException {
+                        writeEntry(out, entry);
+                    }
+                }, null);
+        this.plays = new AppendLog<>(new File(dataDir, PLAYS_LOG_NAME), PLAYS_MAGIC, PLAYS_VERSION, "play log",
+                new AppendLog.Codec<>() {
+                    @Override
+                    public Plays read(DataInputStream in) throws IOException {
+                        return new Plays(in.readInt(), in.readLong());
+                    }
+
+                    @Override
+                    public void write(DataOutputStream out, Plays entry) throws IOException {
+                        out.writeInt(entry.count);
+                        out.writeLong(entry.lastPlayedMillis);
+                    }
+                }, null);
+    }
+
+    // Runs the action once both logs have been read, on a writer thread or right away.
+    public void whenLoaded(Runnable action) {
+        log.whenLoaded(() -> plays.whenLoaded(action));
+    }
+
+    public static File defaultDataDir() {
+        return new File(System.getProperty(DATA_DIR_PROPERTY,
+                System.getProperty("user.home") + File.separator + ".music-player"));
+    }
+
+    private static Entry readEntry(DataInputStream in) throws IOException {
+        long size = in.readLong();
+        long lastModified = in.readLong();
+        long durationMillis = in.readLong();
+        boolean video = in.readBoolean();
+        String container = in.readUTF();
+        int tagCount = in.readInt();
+        Map<String, String> tags = new LinkedHashMap<>();
+        for (int i = 0; i < tagCount; i++) {
+            tags.put(in.readUTF(), in.readUTF());
+        }
+        return new Entry(size, lastModified, durationMillis, video, container, tags);
+    }
+
+    private static void writeEntry(DataOutputStream out, Entry entry) throws IOException {
+        out.writeLong(entry.size);
+        out.writeLong(entry.lastModified);
+        out.writeLong(entry.durationMillis);
+        out.writeBoolean(entry.video);
+        out.writeUTF(entry.container);
+        out.writeInt(entry.tags.size());
+        for (Map.Entry<String, String> tag : entry.tags.entrySet()) {
+            out.writeUTF(tag.getKey());
+            out.writeUTF(tag.getValue());
+        }
+    }
+
+    // Validates against the file's current size and mtime; stale entries count as misses.
+    public Entry lookup(File file) {
+        return lookup(file.getAbsolutePath(), file.length(), file.lastModified());
+    }
+
+    // Same check against attributes the caller already has, e.g. from FileStatusService.
+    public Entry lookup(String path, long size, long lastModified) {
+        Entry entry = peek(path);
+        if (entry != null && entry.size == size && entry.lastModified == lastModified) {
+            hits.incrementAndGet();
+            return entry;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    // Returns whatever is cached without touching the filesystem, for display purposes.
+    public Entry peek(String path) {
+        return log.get(path);
+    }
+
+    public void put(File file, long durationMillis, boolean video, Map<String, String> tags) {
+        put(file.getAbsolutePath(), file.length(), file.lastModified(), durationMillis, video, tags);
+    }
+
+    // Same with attributes the caller already has, so nothing is stat'ed on its thread.
+    // Returns false without writing anything if the cached entry already matches.
+    public boolean put(String path, long size, long lastModified, long durationMillis, boolean video,
+                       Map<String, String> tags) {
+        tags = clipTags(tags);
+        Entry previous = peek(path);
+        if (previous != null && previous.size == size && previous.lastModified == lastModified
+                && previous.durationMillis == durationMillis && previous.video == video
+                && previous.tags.equals(tags)) {
+            return false;
+        }
+        int slash = path.lastIndexOf(File.separatorChar);
+        int dot = path.lastIndexOf('.');
+        String container = dot <= slash ? "" : path.substring(dot + 1).toLowerCase();
+        log.put(path, new Entry(size, lastModified, durationMillis, video, container, tags));
+        return true;
+    }
+
+    // Long lyrics or comment tags are cut to what the log can store, before comparing, so a
+    // re-probe after restart matches the stored entry.
+    private static Map<String, String> clipTags(Map<String, String> tags) {
+        boolean oversized = tags.entrySet().stream().anyMatch(tag ->
+                tag.getKey().length() > MAX_TAG_CHARS || tag.getValue().length() > MAX_TAG_CHARS);
+        if (!oversized) {
+            return tags;
+        }
+        Map<String, String> clipped = new LinkedHashMap<>();
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            clipped.put(clip(tag.getKey()), clip(tag.getValue()));
+        }
+        return clipped;
+    }
+
+    private static String clip(String value) {
+        if (value.length() <= MAX_TAG_CHARS) {
+            return value;
+        }
+        int end = Character.isHighSurrogate(value.charAt(MAX_TAG_CHARS - 1)) ? MAX_TAG_CHARS - 1 : MAX_TAG_CHARS;
+        return value.substring(0, end);
+    }
+
+    // Moves an entry to a file's new path after a rename; size and mtime carry over.
+    public void rename(String from, String to) {
+        log.rename(from, to);
+        plays.rename(from, to);
+    }
+
+    // EDT only, so the read-modify-write needs no lock of its own.
+    public Plays recordPlay(String path, long timeMillis) {
+        Plays previous = plays.get(path);
+        Plays updated = new Plays(previous == null ? 1 : previous.count + 1, timeMillis);
+        plays.put(path, updated);
+        return updated;
+    }
+
+    public Plays peekPlays(String path) {
+        return plays.get(path);
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public double getHitRatio() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0.0 : hits.get() / (double) total;
+    }
+
+    public int size() {
+        return log.size();
+    }
+}
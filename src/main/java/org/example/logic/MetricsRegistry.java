@@ -0,0 +1,128 @@
+package org.example.logic;
+
+import javax.swing.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+// Named counters, gauges and latency histograms for the whole player. Components keep their
+// own cheap fields; the registry reads them through gauges only when a snapshot is taken.
+// Snapshots are plain "name value" text, written periodically to <dataDir>/metrics.txt when
+// -Dmetrics.dumpIntervalSeconds is set.
+public class MetricsRegistry {
+    public static final String DUMP_INTERVAL_PROPERTY = "metrics.dumpIntervalSeconds";
+    private static final String DUMP_NAME = "metrics.txt";
+    private static final long EDT_PROBE_MILLIS = 500;
+
+    private final Map<String, LongAdder> counters = new ConcurrentSkipListMap<>();
+    private final Map<String, DoubleSupplier> gauges = new ConcurrentSkipListMap<>();
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentSkipListMap<>();
+    private final Map<String, Long> lastCounterValues = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private long lastSnapshotNanos = System.nanoTime();
+
+    public MetricsRegistry() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    public void gauge(String name, DoubleSupplier supplier) {
+        gauges.put(name, supplier);
+    }
+
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    // Posts a timestamped no-op to the EDT at a fixed rate; how late it runs is the queue lag.
+    public void monitorEdtLag() {
+        LatencyHistogram lag = histogram("edt.queue.lag.nanos");
+        scheduler.scheduleAtFixedRate(() -> {
+            long posted = System.nanoTime();
+            SwingUtilities.invokeLater(() -> lag.record(System.nanoTime() - posted));
+        }, EDT_PROBE_MILLIS, EDT_PROBE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public void startPeriodicDump(File dataDir) {
+        long seconds = Long.getLong(DUMP_INTERVAL_PROPERTY, 0L);
+        if (seconds <= 0) {
+            return;
+        }
+        File target = new File(dataDir, DUMP_NAME);
+        scheduler.scheduleAtFixedRate(() -> dump(target), seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    public void dump(File target) {
+        File temp = new File(target.getParentFile(), target.getName() + ".tmp");
+        try {
+            Files.createDirectories(target.getParentFile().toPath());
+            try (Writer writer = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+                writer.write(snapshot());
+            }
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Failed to write metrics: " + e.getMessage());
+        }
+    }
+
+    // Counters also report their rate per second since the previous snapshot.
+    public synchronized String snapshot() {
+        long now = System.nanoTime();
+        double seconds = Math.max(1e-9, (now - lastSnapshotNanos) / 1e9);
+        lastSnapshotNanos = now;
+
+        StringBuilder out = new StringBuilder(4_096);
+        out.append("# snapshot ").append(System.currentTimeMillis()).append('\n');
+        for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            long value = entry.getValue().sum();
+            Long previous = lastCounterValues.put(entry.getKey(), value);
+            out.append(entry.getKey()).append(' ').append(value).append('\n');
+            out.append(entry.getKey()).append(".rate ")
+                    .append(String.format("%.2f", (value - (previous == null ? 0 : previous)) / seconds)).append('\n');
+        }
+        for (Map.Entry<String, DoubleSupplier> entry : gauges.entrySet()) {
+            double value;
+            try {
+                value = entry.getValue().getAsDouble();
+            } catch (RuntimeException e) {
+                value = Double.NaN;
+            }
+            out.append(entry.getKey()).append(' ').append(value).append('\n');
+        }
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            String name = entry.getKey();
+            out.append(name).append(".count ").append(histogram.getCount()).append('\n');
+            out.append(name).append(".mean ").append(String.format("%.0f", histogram.getMean())).append('\n');
+            out.append(name).append(".p50 ").append(histogram.getValueAtPercentile(50)).append('\n');
+            out.append(name).append(".p90 ").append(histogram.getValueAtPercentile(90)).append('\n');
+            out.append(name).append(".p99 ").append(histogram.getValueAtPercentile(99)).append('\n');
+            out.append(name).append(".p999 ").append(histogram.getValueAtPercentile(99.9)).append('\n');
+            out.append(name).append(".max ").append(histogram.getMax()).append('\n');
+        }
+        return out.toString();
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,289 @@
+package org.example.logic;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Builds waveform peak pyramids in the background and stores them next to the metadata
+// cache, one file per track keyed by path, size and mtime. Finished indexes are written
+// atomically; after a restart, tracks that are already indexed and unchanged are skipped,
+// which makes an interrupted run resumable.
+public class PeakIndexer {
+    private static final int MAGIC = 0x4D50504B;
+    private static final int VERSION = 1;
+    private static final String DIRECTORY_NAME = "peaks";
+    private static final int MEMORY_CACHE_CAPACITY = 16;
+    // Stands for a current but empty index, i.e. a file version known to be undecodable.
+    private static final PeakPyramid UNDECODABLE = new PeakPyramid(new byte[0], new byte[0], 0, 0f);
+
+    private final File directory;
+    private final BackgroundIndexer indexer;
+    private final ExecutorService onDemand;
+    private final Map<String, PeakPyramid> recent = new LinkedHashMap<>(MEMORY_CACHE_CAPACITY, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PeakPyramid> eldest) {
+            return size() > MEMORY_CACHE_CAPACITY;
+        }
+    };
+    private final AtomicLong indexed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile boolean closed = false;
+
+    public PeakIndexer() {
+        this(new File(MetadataCache.defaultDataDir(), DIRECTORY_NAME));
+    }
+
+    public PeakIndexer(File directory) {
+        this.directory = directory;
+        indexer = new BackgroundIndexer("peak-indexer", this::index);
+        onDemand = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "peak-indexer-current");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void enqueue(Collection<String> paths) {
+        indexer.enqueue(paths);
+    }
+
+    // Delivers the pyramid for the track that is about to play, building it ahead of the
+    // background queue if needed. The callback runs on an indexer thread and may get null
+    // when the format cannot be decoded.
+    public void request(String path, Consumer<PeakPyramid> callback) {
+        synchronized (recent) {
+            PeakPyramid cached = recent.get(path);
+            if (cached != null) {
+                callback.accept(cached == UNDECODABLE ? null : cached);
+                return;
+            }
+        }
+        onDemand.execute(() -> callback.accept(loadOrBuild(new File(path))));
+    }
+
+    private void index(String path) {
+        File file = new File(path);
+        if (isCurrent(file)) {
+            skipped.incrementAndGet();
+        } else if (build(file) == null) {
+            failed.incrementAndGet();
+        }
+    }
+
+    private PeakPyramid loadOrBuild(File file) {
+        PeakPyramid pyramid = load(file);
+        if (pyramid == UNDECODABLE) {
+            return null;
+        }
+        return pyramid != null ? pyramid : build(file);
+    }
+
+    private File indexFileFor(File file) {
+        String key = UUID.nameUUIDFromBytes(file.getAbsolutePath().getBytes(StandardCharsets.UTF_8)).toString();
+        return new File(directory, key + ".peaks");
+    }
+
+    private boolean isCurrent(File file) {
+        File indexFile = indexFileFor(file);
+        if (!indexFile.exists()) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile), 512))) {
+            return readHeader(in, file);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private boolean readHeader(DataInputStream in, File file) throws IOException {
+        return in.readInt() == MAGIC && in.readInt() == VERSION
+                && in.readUTF().equals(file.getAbsolutePath())
+                && in.readLong() == file.length()
+                && in.readLong() == file.lastModified();
+    }
+
+    private PeakPyramid load(File file) {
+        File indexFile = indexFileFor(file);
+        if (!indexFile.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (!readHeader(in, file)) {
+                return null;
+            }
+            float sampleRate = in.readFloat();
+            long frameCount = in.readLong();
+            int count = in.readInt();
+            if (count == 0) {
+                remember(file, UNDECODABLE);
+                return UNDECODABLE;
+            }
+            byte[] min = new byte[count];
+            byte[] max = new byte[count];
+            in.readFully(min);
+            in.readFully(max);
+            PeakPyramid pyramid = new PeakPyramid(min, max, frameCount, sampleRate);
+            remember(file, pyramid);
+            return pyramid;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // Decodes with javax.sound, which covers uncompressed WAV, AIFF and AU; other formats
+    // are reported as failed and retried only when their size or mtime changes.
+    private PeakPyramid build(File file) {
+        long size = file.length();
+        long lastModified = file.lastModified();
+        try (AudioInputStream source = AudioSystem.getAudioInputStream(file)) {
+            AudioFormat sourceFormat = source.getFormat();
+            AudioFormat pcmFormat = new AudioFormat(sourceFormat.getSampleRate(), 16,
+                    sourceFormat.getChannels(), true, false);
+            try (AudioInputStream pcm = AudioSystem.getAudioInputStream(pcmFormat, source)) {
+                PeakPyramid pyramid = summarize(pcm, pcmFormat);
+                if (pyramid == null) {
+                    return null;
+                }
+                write(file, size, lastModified, pyramid);
+                remember(file, pyramid);
+                indexed.incrementAndGet();
+                return pyramid;
+            }
+        } catch (UnsupportedAudioFileException | IllegalArgumentException e) {
+            // An empty index records that this version of the file cannot be decoded.
+            try {
+                write(file, size, lastModified, UNDECODABLE);
+                remember(file, UNDECODABLE);
+            } catch (IOException ignored) {
+                // Retried on the next run.
+            }
+            return null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private PeakPyramid summarize(AudioInputStream pcm, AudioFormat format) throws IOException {
+        int frameSize = format.getFrameSize();
+        byte[] buffer = new byte[PeakPyramid.FRAMES_PER_PEAK * frameSize * 16];
+        long expectedFrames = pcm.getFrameLength();
+        int capacity = expectedFrames > 0
+                ? (int) Math.min(Integer.MAX_VALUE - 8, expectedFrames / PeakPyramid.FRAMES_PER_PEAK + 1) : 1_024;
+        byte[] min = new byte[capacity];
+        byte[] max = new byte[capacity];
+        int peaks = 0;
+        int framesInPeak = 0;
+        int low = 0;
+        int high = 0;
+        long frames = 0;
+        int read;
+        while (!closed && (read = pcm.read(buffer, 0, buffer.length - buffer.length % frameSize)) != -1) {
+            for (int i = 0; i + 1 < read; i += 2) {
+                int sample = (short) ((buffer[i + 1] << 8) | (buffer[i] & 0xFF));
+                if (sample < low) {
+                    low = sample;
+                }
+                if (sample > high) {
+                    high = sample;
+                }
+                if ((i + 2) % frameSize == 0 && ++framesInPeak == PeakPyramid.FRAMES_PER_PEAK) {
+                    if (peaks == min.length) {
+                        min = Arrays.copyOf(min, peaks * 2);
+                        max = Arrays.copyOf(max, peaks * 2);
+                    }
+                    min[peaks] = (byte) (low >> 8);
+                    max[peaks] = (byte) (high >> 8);
+                    peaks++;
+                    frames += framesInPeak;
+                    framesInPeak = 0;
+                    low = 0;
+                    high = 0;
+                }
+            }
+        }
+        if (closed) {
+            return null;
+        }
+        if (framesInPeak > 0) {
+            if (peaks == min.length) {
+                min = Arrays.copyOf(min, peaks + 1);
+                max = Arrays.copyOf(max, peaks + 1);
+            }
+            min[peaks] = (byte) (low >> 8);
+            max[peaks] = (byte) (high >> 8);
+            peaks++;
+            frames += framesInPeak;
+        }
+        return new PeakPyramid(Arrays.copyOf(min, peaks), Arrays.copyOf(max, peaks),
+                frames, format.getSampleRate());
+    }
+
+    private void write(File file, long size, long lastModified, PeakPyramid pyramid) throws IOException {
+        Files.createDirectories(directory.toPath());
+        File indexFile = indexFileFor(file);
+        File temp = new File(directory, indexFile.getName() + "." + Thread.currentThread().getId() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp.toPath())))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(file.getAbsolutePath());
+            out.writeLong(size);
+            out.writeLong(lastModified);
+            out.writeFloat(pyramid.getSampleRate());
+            out.writeLong(pyramid.getFrameCount());
+            out.writeInt(pyramid.getPeakCount(0));
+            out.write(pyramid.getBaseMinimums());
+            out.write(pyramid.getBaseMaximums());
+        }
+        Files.move(temp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void remember(File file, PeakPyramid pyramid) {
+        synchronized (recent) {
+            recent.put(file.getAbsolutePath(), pyramid);
+        }
+    }
+
+    public void shutdown() {
+        closed = true;
+        indexer.shutdown();
+        onDemand.shutdownNow();
+    }
+
+    public int getPendingCount() {
+        return indexer.getPendingCount();
+    }
+
+    public long getIndexedCount() {
+        return indexed.get();
+    }
+
+    public long getSkippedCount() {
+        return skipped.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.logic;
+
+// Multi-resolution min/max summary of a track's waveform. Level 0 holds one peak pair per
+// FRAMES_PER_PEAK frames; every level above halves the previous one, so any zoom can be
+// drawn from the coarsest level that still has at least one peak per pixel.
+public final class PeakPyramid {
+    public static final int FRAMES_PER_PEAK = 256;
+
+    private final byte[][] minimums;
+    private final byte[][] maximums;
+    private final long frameCount;
+    private final float sampleRate;
+
+    public PeakPyramid(byte[] baseMinimums, byte[] baseMaximums, long frameCount, float sampleRate) {
+        this.frameCount = frameCount;
+        this.sampleRate = sampleRate;
+        int levels = 1;
+        for (int count = baseMinimums.length; count > 1; count = (count + 1) / 2) {
+            levels++;
+        }
+        minimums = new byte[levels][];
+        maximums = new byte[levels][];
+        minimums[0] = baseMinimums;
+        maximums[0] = baseMaximums;
+        for (int level = 1; level < levels; level++) {
+            byte[] finerMin = minimums[level - 1];
+            byte[] finerMax = maximums[level - 1];
+            int count = (finerMin.length + 1) / 2;
+            byte[] min = new byte[count];
+            byte[] max = new byte[count];
+            for (int i = 0; i < count; i++) {
+                int left = i * 2;
+                int right = Math.min(left + 1, finerMin.length - 1);
+                min[i] = (byte) Math.min(finerMin[left], finerMin[right]);
+                max[i] = (byte) Math.max(finerMax[left], finerMax[right]);
+            }
+            minimums[level] = min;
+            maximums[level] = max;
+        }
+    }
+
+    // Reduces the [fromFraction, toFraction) part of the track to width columns. Values are
+    // signed 8-bit amplitudes; the output arrays are caller-owned so repaints do not allocate.
+    public void render(double fromFraction, double toFraction, int width, byte[] minOut, byte[] maxOut) {
+        if (width <= 0) {
+            return;
+        }
+        int baseCount = minimums[0].length;
+        double span = Math.max(0, toFraction - fromFraction) * baseCount;
+        int level = 0;
+        while (level + 1 < minimums.length && span / (1 << (level + 1)) >= width) {
+            level++;
+        }
+        byte[] min = minimums[level];
+        byte[] max = maximums[level];
+        double first = fromFraction * baseCount / (1 << level);
+        double perColumn = span / (1 << level) / width;
+        for (int column = 0; column < width; column++) {
+            int start = (int) (first + column * perColumn);
+            int end = Math.max(start + 1, (int) (first + (column + 1) * perColumn));
+            byte low = 0;
+            byte high = 0;
+            for (int i = Math.max(0, start); i < Math.min(end, min.length); i++) {
+                if (min[i] < low) {
+                    low = min[i];
+                }
+                if (max[i] > high) {
+                    high = max[i];
+                }
+            }
+            minOut[column] = low;
+            maxOut[column] = high;
+        }
+    }
+
+    public int getLevelCount() {
+        return minimums.length;
+    }
+
+    public int getPeakCount(int level) {
+        return minimums[level].length;
+    }
+
+    byte[] getBaseMinimums() {
+        return minimums[0];
+    }
+
+    byte[] getBaseMaximums() {
+        return maximums[0];
+    }
+
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    public float getSampleRate() {
+        return sampleRate;
+    }
+
+    public long getDurationMillis() {
+        return (long) (frameCount * 1000 / sampleRate);
+    }
+}
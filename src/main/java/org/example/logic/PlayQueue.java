@@ -0,0 +1,224 @@
+package org.example.logic;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Decides which playlist entry plays next. Explicitly queued tracks ("up next") come first,
+// then either the playlist order or a shuffle. The shuffle never materializes a permutation:
+// step k of a round maps to an index through a seeded Feistel network over the next
+// power-of-four range, cycle-walking until it lands inside the playlist. Each round's seed
+// is derived from the previous one, so peeking at the next choice consumes nothing. Memory
+// is O(1) at any playlist size, and inserts or removals never rebuild anything; they only
+// change the steps that touch the affected slots (or, past a power of four, the rest of the
+// round), so a round may repeat or miss a few tracks. History stores paths, so it survives
+// edits; entries that are gone are skipped when popped. Confined to the EDT like the
+// playlist it reads; the preloader gets its candidate from PlaylistManager instead.
+public class PlayQueue {
+    private static final int HISTORY_LIMIT = 500;
+    private static final int ROUNDS = 4;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    public enum RepeatMode {
+        ALL, ONE, OFF
+    }
+
+    private final List<String> playlist;
+    private final Deque<String> upNext = new ArrayDeque<>();
+    private final Deque<String> back = new ArrayDeque<>();
+    private final Deque<String> forward = new ArrayDeque<>();
+    private final SplittableRandom seeds = new SplittableRandom();
+    private RepeatMode repeatMode = RepeatMode.ALL;
+    private boolean shuffle;
+    private long roundSeed;
+    private long step;
+
+    public PlayQueue(List<String> playlist) {
+        this.playlist = playlist;
+        startRound();
+    }
+
+    public void setShuffle(boolean shuffle) {
+        if (shuffle && !this.shuffle) {
+            startRound();
+        }
+        this.shuffle = shuffle;
+    }
+
+    public boolean isShuffle() {
+        return shuffle;
+    }
+
+    public void setRepeatMode(RepeatMode repeatMode) {
+        this.repeatMode = repeatMode;
+    }
+
+    public RepeatMode getRepeatMode() {
+        return repeatMode;
+    }
+
+    public void enqueue(String path) {
+        upNext.addLast(path);
+    }
+
+    public int getUpNextCount() {
+        return upNext.size();
+    }
+
+    public void clear() {
+        upNext.clear();
+        back.clear();
+        forward.clear();
+        startRound();
+    }
+
+    // Index to play after current (-1 if none), consuming queued tracks and shuffle steps.
+    public int next(int current) {
+        return select(current, true);
+    }
+
+    // Same choice as next() without consuming anything, e.g. for preloading.
+    public int peekNext(int current) {
+        return select(current, false);
+    }
+
+    private int select(int current, boolean consume) {
+        int size = playlist.size();
+        if (size == 0) {
+            return -1;
+        }
+        int fromHistory = firstPresent(forward, consume);
+        if (fromHistory != -1) {
+            return fromHistory;
+        }
+        int queued = firstPresent(upNext, consume);
+        if (queued != -1) {
+            return queued;
+        }
+        if (!shuffle) {
+            int next = current + 1;
+            if (next < size) {
+                return next;
+            }
+            return repeatMode == RepeatMode.OFF ? -1 : 0;
+        }
+
+        long seed = roundSeed;
+        long nextStep = step;
+        while (true) {
+            if (nextStep >= size) {
+                if (repeatMode == RepeatMode.OFF) {
+                    return -1;
+                }
+                seed = mix(seed + GOLDEN_GAMMA);
+                nextStep = 0;
+            }
+            int index = shuffledIndex(nextStep++, size, seed);
+            // A round visits every index once, so this skips the current track at most once.
+            if (index != current || size == 1) {
+                if (consume) {
+                    roundSeed = seed;
+                    step = nextStep;
+                }
+                return index;
+            }
+        }
+    }
+
+    // Index to go back to: the last track played, else the previous entry in playlist order.
+    public int previous(int current) {
+        int size = playlist.size();
+        if (size == 0) {
+            return -1;
+        }
+        int fromHistory = firstPresent(back, true);
+        if (fromHistory != -1) {
+            return fromHistory;
+        }
+        if (current <= 0) {
+            return repeatMode == RepeatMode.OFF ? 0 : size - 1;
+        }
+        return Math.min(current, size) - 1;
+    }
+
+    // The player moved forward from this track.
+    public void advanced(String leftPath) {
+        push(back, leftPath);
+    }
+
+    // The player moved back from this track; next() returns to it first.
+    public void retreated(String leftPath) {
+        push(forward, leftPath);
+    }
+
+    // The user picked a track directly; forward history no longer applies.
+    public void jumped(String leftPath) {
+        push(back, leftPath);
+        forward.clear();
+    }
+
+    private static void push(Deque<String> history, String path) {
+        if (path == null) {
+            return;
+        }
+        history.addFirst(path);
+        if (history.size() > HISTORY_LIMIT) {
+            history.removeLast();
+        }
+    }
+
+    private int firstPresent(Deque<String> paths, boolean consume) {
+        Iterator<String> iterator = paths.iterator();
+        while (iterator.hasNext()) {
+            int index = playlist.indexOf(iterator.next());
+            if (consume) {
+                iterator.remove();
+            }
+            if (index != -1) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private void startRound() {
+        roundSeed = seeds.nextLong();
+        step = 0;
+    }
+
+    // Even bit count so the Feistel halves are equal; the domain is under 4x the playlist.
+    private static int domainBits(int size) {
+        int bits = Math.max(2, 64 - Long.numberOfLeadingZeros(size - 1L));
+        return bits + (bits & 1);
+    }
+
+    private static int shuffledIndex(long position, int size, long seed) {
+        int halfBits = domainBits(size) / 2;
+        long halfMask = (1L << halfBits) - 1;
+        long value = position;
+        do {
+            long left = value >>> halfBits;
+            long right = value & halfMask;
+            for (int round = 0; round < ROUNDS; round++) {
+                long mixed = left ^ (mix(right ^ (seed + round * GOLDEN_GAMMA)) & halfMask);
+                left = right;
+                right = mixed;
+            }
+            value = (left << halfBits) | right;
+        } while (value >= size);
+        return (int) value;
+    }
+
+    // SplitMix64 finalizer.
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public int getHistorySize() {
+        return back.size();
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.logic;
+
+import java.util.function.LongConsumer;
+
+// Sample-level alternative to JavaFX MediaPlayer for formats we can decode ourselves.
+public interface PlaybackEngine extends AutoCloseable {
+    void play();
+
+    void pause();
+
+    void stop();
+
+    void seek(long millis);
+
+    boolean isPlaying();
+
+    long getPositionMillis();
+
+    long getDurationMillis();
+
+    float getSampleRate();
+
+    void setVolume(double volume);
+
+    void setMute(boolean mute);
+
+    void setOnEndOfMedia(Runnable onEndOfMedia);
+
+    void setPositionListener(LongConsumer positionListener);
+
+    // Receives every block of samples handed to the output device; null detaches it.
+    void setSpectrumAnalyzer(SpectrumAnalyzer spectrumAnalyzer);
+
+    long getUnderrunCount();
+
+    @Override
+    void close();
+}
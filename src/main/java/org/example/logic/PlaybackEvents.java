@@ -0,0 +1,83 @@
+package org.example.logic;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// Custom Flight Recorder events. The measured intervals usually start on one thread and end
+// on another, so they are carried as explicit timespan fields rather than begin()/end().
+// Enable with e.g. -XX:StartFlightRecording and filter on the "Media Player" category.
+public final class PlaybackEvents {
+    private PlaybackEvents() {
+    }
+
+    @Name("org.example.MediaLoad")
+    @Label("Media Load")
+    @Category("Media Player")
+    @Description("Time from requesting a track until its player reported ready")
+    @StackTrace(false)
+    public static class MediaLoad extends Event {
+        @Label("Path")
+        public String path;
+
+        @Label("Engine")
+        public String engine;
+
+        @Label("Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        public long latency;
+
+        @Label("Metadata Cached")
+        public boolean cached;
+    }
+
+    @Name("org.example.TrackTransition")
+    @Label("Track Transition")
+    @Category("Media Player")
+    @Description("Gap between the end of one track and audio from the next, or until the next was ready "
+            + "to play when it had not been preloaded")
+    @StackTrace(false)
+    public static class TrackTransition extends Event {
+        @Label("Path")
+        public String path;
+
+        @Label("Preloaded")
+        public boolean preloaded;
+
+        @Label("Gap")
+        @Timespan(Timespan.NANOSECONDS)
+        public long gap;
+    }
+
+    @Name("org.example.Seek")
+    @Label("Seek")
+    @Category("Media Player")
+    @Description("Time from a seek request until the player reported the new position")
+    @StackTrace(false)
+    public static class Seek extends Event {
+        @Label("Target (ms)")
+        public long targetMillis;
+
+        @Label("Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        public long latency;
+    }
+
+    @Name("org.example.VisualizationFrame")
+    @Label("Visualization Frame")
+    @Category("Media Player")
+    @Description("Time spent drawing one spectrum frame on the FX thread")
+    @StackTrace(false)
+    public static class VisualizationFrame extends Event {
+        @Label("Backend")
+        public String backend;
+
+        @Label("Render Time")
+        @Timespan(Timespan.NANOSECONDS)
+        public long renderTime;
+    }
+}
@@ -0,0 +1,262 @@
+package org.example.logic;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URI;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.zip.CRC32;
+
+// Playlist persistence. The native format is a flat binary file: a header with entry count
+// and CRC32, an offset table, then UTF-8 path bytes, opened through FileChannel.map and
+// decoded entry by entry as the list is read. M3U and PLS are read and written line by line;
+// .m3u8 is UTF-8 by definition, while plain .m3u and .pls are often Latin-1 or CP-1252, so
+// they are read as UTF-8 only if they decode cleanly.
+public final class PlaylistFiles {
+    public static final String BINARY_EXTENSION = ".mpl";
+    private static final int MAGIC = 0x4D504C31;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 20;
+    private static final Charset LEGACY_CHARSET = Charset.forName("windows-1252");
+    private static final String FILE_URI_PREFIX = "file://";
+
+    private PlaylistFiles() {
+    }
+
+    public static void writeBinary(Path target, List<String> paths) throws IOException {
+        int count = paths.size();
+        byte[][] encoded = new byte[count][];
+        int[] offsets = new int[count + 1];
+        for (int i = 0; i < count; i++) {
+            encoded[i] = paths.get(i).getBytes(StandardCharsets.UTF_8);
+            offsets[i + 1] = offsets[i] + encoded[i].length;
+        }
+
+        CRC32 crc = new CRC32();
+        byte[] intBytes = new byte[4];
+        for (int offset : offsets) {
+            intBytes[0] = (byte) (offset >>> 24);
+            intBytes[1] = (byte) (offset >>> 16);
+            intBytes[2] = (byte) (offset >>> 8);
+            intBytes[3] = (byte) offset;
+            crc.update(intBytes);
+        }
+        for (byte[] bytes : encoded) {
+            crc.update(bytes);
+        }
+
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(count);
+            out.writeLong(crc.getValue());
+            for (int offset : offsets) {
+                out.writeInt(offset);
+            }
+            for (byte[] bytes : encoded) {
+                out.write(bytes);
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public static MappedPlaylist openBinary(Path source) throws IOException {
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException("Playlist file is truncated");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not a playlist file: " + source);
+            }
+            int count = buffer.getInt(8);
+            long expectedCrc = buffer.getLong(12);
+            long dataStart = HEADER_BYTES + (count + 1) * 4L;
+            if (count < 0 || dataStart > buffer.limit()
+                    || dataStart + buffer.getInt(HEADER_BYTES + count * 4) != buffer.limit()) {
+                throw new IOException("Playlist file is corrupt: " + source);
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().position(HEADER_BYTES));
+            if (crc.getValue() != expectedCrc) {
+                throw new IOException("Playlist checksum mismatch: " + source);
+            }
+            return new MappedPlaylist(buffer, count, (int) dataStart);
+        }
+    }
+
+    public static final class MappedPlaylist extends AbstractList<String> implements RandomAccess {
+        private final MappedByteBuffer buffer;
+        private final int count;
+        private final int dataStart;
+
+        private MappedPlaylist(MappedByteBuffer buffer, int count, int dataStart) {
+            this.buffer = buffer;
+            this.count = count;
+            this.dataStart = dataStart;
+        }
+
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            int start = buffer.getInt(HEADER_BYTES + index * 4);
+            int end = buffer.getInt(HEADER_BYTES + (index + 1) * 4);
+            byte[] bytes = new byte[end - start];
+            buffer.get(dataStart + start, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+    }
+
+    public static void importM3u(Path source, Consumer<String> sink) throws IOException {
+        Path baseDir = source.toAbsolutePath().getParent();
+        boolean utf8 = source.getFileName().toString().toLowerCase().endsWith(".m3u8");
+        try (BufferedReader reader = openText(source, utf8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.strip();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    sink.accept(resolve(baseDir, line));
+                }
+            }
+        }
+    }
+
+    public static void exportM3u(Path target, List<String> paths, ToLongFunction<String> durationMillis)
+            throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+            writer.write("#EXTM3U");
+            writer.newLine();
+            for (String path : paths) {
+                long millis = durationMillis.applyAsLong(path);
+                writer.write("#EXTINF:" + (millis < 0 ? -1 : millis / 1000) + "," + new File(path).getName());
+                writer.newLine();
+                writer.write(path);
+                writer.newLine();
+            }
+        }
+    }
+
+    public static void importPls(Path source, Consumer<String> sink) throws IOException {
+        Path baseDir = source.toAbsolutePath().getParent();
+        try (BufferedReader reader = openText(source, false)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.strip();
+                if (line.regionMatches(true, 0, "File", 0, 4)) {
+                    int equals = line.indexOf('=');
+                    if (equals > 4) {
+                        sink.accept(resolve(baseDir, line.substring(equals + 1).strip()));
+                    }
+                }
+            }
+        }
+    }
+
+    public static void exportPls(Path target, List<String> paths, ToLongFunction<String> durationMillis)
+            throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+            writer.write("[playlist]");
+            writer.newLine();
+            int number = 1;
+            for (String path : paths) {
+                long millis = durationMillis.applyAsLong(path);
+                writer.write("File" + number + "=" + path);
+                writer.newLine();
+                writer.write("Title" + number + "=" + new File(path).getName());
+                writer.newLine();
+                writer.write("Length" + number + "=" + (millis < 0 ? -1 : millis / 1000));
+                writer.newLine();
+                number++;
+            }
+            writer.write("NumberOfEntries=" + paths.size());
+            writer.newLine();
+            writer.write("Version=2");
+            writer.newLine();
+        }
+    }
+
+    // Undecodable bytes become U+FFFD instead of aborting the import at the first one. Files
+    // not known to be UTF-8 are read whole to find out; playlists are small next to a library.
+    private static BufferedReader openText(Path source, boolean utf8) throws IOException {
+        if (utf8) {
+            return new BufferedReader(Channels.newReader(FileChannel.open(source, StandardOpenOption.READ),
+                    StandardCharsets.UTF_8.newDecoder()
+                            .onMalformedInput(CodingErrorAction.REPLACE)
+                            .onUnmappableCharacter(CodingErrorAction.REPLACE), -1));
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(source));
+        String text;
+        try {
+            text = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(bytes)
+                    .toString();
+        } catch (CharacterCodingException e) {
+            text = LEGACY_CHARSET.decode(bytes.rewind()).toString();
+        }
+        return new BufferedReader(new StringReader(text));
+    }
+
+    private static String resolve(Path baseDir, String entry) {
+        if (entry.regionMatches(true, 0, FILE_URI_PREFIX, 0, FILE_URI_PREFIX.length())) {
+            return fromFileUri(entry);
+        }
+        if (entry.contains("://")) {
+            return entry;
+        }
+        try {
+            Path path = Path.of(entry);
+            if (!path.isAbsolute() && baseDir != null) {
+                path = baseDir.resolve(path);
+            }
+            return path.normalize().toString();
+        } catch (InvalidPathException e) {
+            return entry;
+        }
+    }
+
+    private static String fromFileUri(String entry) {
+        try {
+            return Paths.get(URI.create(entry)).normalize().toString();
+        } catch (IllegalArgumentException | FileSystemNotFoundException e) {
+            // Hand-written playlists often leave spaces and accents unescaped.
+            String path = entry.substring(FILE_URI_PREFIX.length());
+            return path.startsWith("/") ? path : entry;
+        }
+    }
+}
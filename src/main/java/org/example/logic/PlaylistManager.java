@@ -4,17 +4,84 @@ import org.example.AppMusicPlayer;
 
 import javax.swing.*;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 public class PlaylistManager {
     private final AppMusicPlayer app;
-    private final List<String> mediaFiles;
+    private final PlaylistStore mediaFiles;
+    private static final String SESSION_PLAYLIST = "session" + PlaylistFiles.BINARY_EXTENSION;
+    private static final int IMPORT_BATCH_SIZE = 1_000;
+    private final LibraryScanner libraryScanner;
+    private final LibraryWatcher libraryWatcher;
+    // Playlist files are decoded here and handed to the EDT in batches, so opening a large
+    // playlist never blocks the UI.
+    private final ExecutorService playlistIo = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "playlist-io");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final int PREFETCH_AHEAD = 32;
+    private static final int PREFETCH_BEHIND = 8;
+    private static final int SEARCH_RESULT_LIMIT = 500;
+    private static final long LONG_TRACK_MILLIS = 10 * 60 * 1_000;
+    private static final int VIEW_REFRESH_MILLIS = 250;
+    public static final List<String> VIEWS = List.of("Playlist order", "Longest first", "Largest first",
+            "Recently added", "Recently changed", "By artist", "By album", "By folder", "Most played",
+            "Unplayed", "Unplayed, over 10 min, this folder");
     private int currentTrackIndex = -1;
+    private final PlayQueue playQueue;
+    private final SearchIndex searchIndex;
+    private final TrackTable trackTable;
+    private boolean movingForward = true;
+    private int currentView;
+    private boolean searching;
+    // Re-runs the active view once a burst of playlist changes has settled.
+    private final Timer viewRefresh = new Timer(VIEW_REFRESH_MILLIS, e -> refreshView());
+    // What the gapless preloader should prepare. The FX thread polls it on every position tick,
+    // so it is computed here on the EDT whenever the playlist, the play queue or the current
+    // track changes, and the FX thread never reads the playlist or the queue itself.
+    private volatile String preloadCandidate;
+    private volatile int playlistSize;
+    // Until the saved session is back, saving would overwrite it with a partial playlist.
+    private boolean sessionRestored;
 
     public PlaylistManager(AppMusicPlayer app) {
         this.app = app;
-        this.mediaFiles = new ArrayList<>();
+        this.mediaFiles = new PlaylistStore();
+        this.playQueue = new PlayQueue(mediaFiles);
+        this.searchIndex = new SearchIndex(this::searchableText);
+        this.trackTable = new TrackTable(app.getMetadataCache());
+        this.libraryScanner = new LibraryScanner();
+        this.libraryWatcher = LibraryWatcher.isEnabled() ? createLibraryWatcher() : null;
+        app.getMetadataCache().whenLoaded(() -> SwingUtilities.invokeLater(this::metadataLoaded));
+        viewRefresh.setRepeats(false);
+    }
+
+    // Rows added before the metadata cache finished loading were shown without durations and tags.
+    private void metadataLoaded() {
+        for (String path : new ArrayList<>(mediaFiles)) {
+            metadataUpdated(path);
+        }
+    }
+
+    private LibraryWatcher createLibraryWatcher() {
+        try {
+            return new LibraryWatcher(app.getMetadataCache(),
+                    changes -> SwingUtilities.invokeLater(() -> applyLibraryChanges(changes)));
+        } catch (IOException e) {
+            System.err.println("Live library sync unavailable: " + e.getMessage());
+            return null;
+        }
     }
 
     public void addSongsThroughChooser() {
@@ -27,96 +94,439 @@ public class PlaylistManager {
         fileChooser.setCurrentDirectory(new File(desktopPath));
 
         if (fileChooser.showOpenDialog(app) == JFileChooser.APPROVE_OPTION) {
-            DefaultListModel<String> model = (DefaultListModel<String>) app.getUIComponents()
-                    .getPlaylistList().getModel();
-
-            boolean addedAny = false;
+            List<String> selected = new ArrayList<>();
             for (File file : fileChooser.getSelectedFiles()) {
                 if (isSupported(file)) {
-                    String filePath = file.getAbsolutePath();
-                    if (!mediaFiles.contains(filePath)) {
-                        mediaFiles.add(filePath);
-                        model.addElement(file.getName());
-                        addedAny = true;
-                    }
+                    selected.add(file.getAbsolutePath());
                 }
             }
 
-            app.getUIComponents().refreshPlaylistDisplay(mediaFiles);
+            int added = addPaths(selected);
+            if (added > 0) {
+                app.getUIComponents().setStatus("Added " + added + " files (known runtime "
+                        + MediaController.formatTime(getTotalRuntimeMillis()) + ")");
+            }
+        }
+    }
+
+    public int addPaths(List<String> paths) {
+        List<String> added = new ArrayList<>();
+        for (String path : paths) {
+            if (mediaFiles.add(path)) {
+                added.add(path);
+            }
+        }
+
+        if (!added.isEmpty()) {
+            app.getUIComponents().getPlaylistModel().pathsAppended(added.size());
+            if (libraryWatcher != null) {
+                libraryWatcher.track(added);
+            }
+            searchIndex.addAll(added);
+            trackTable.addAll(added);
+            app.getPeakIndexer().enqueue(added);
+            app.getLoudnessScanner().enqueue(added);
+            if (currentTrackIndex == -1) {
+                currentTrackIndex = 0;
+                prefetchAround(0);
+            }
+            publishState();
+        }
+        return added.size();
+    }
+
+    public void savePlaylist() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter(
+                "Playlists", "mpl", "m3u", "m3u8", "pls"));
+        if (fileChooser.showSaveDialog(app) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+
+        Path target = fileChooser.getSelectedFile().toPath();
+        String name = target.getFileName().toString().toLowerCase();
+        if (!name.endsWith(".m3u") && !name.endsWith(".m3u8") && !name.endsWith(".pls")
+                && !name.endsWith(PlaylistFiles.BINARY_EXTENSION)) {
+            target = target.resolveSibling(target.getFileName() + PlaylistFiles.BINARY_EXTENSION);
+        }
+        try {
+            writePlaylist(target);
+            app.getUIComponents().setStatus("Saved " + mediaFiles.size() + " tracks to " + target.getFileName());
+        } catch (IOException e) {
+            app.getUIComponents().setStatus("Save failed: " + e.getMessage());
+        }
+    }
+
+    public void loadPlaylist() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter(
+                "Playlists", "mpl", "m3u", "m3u8", "pls"));
+        if (fileChooser.showOpenDialog(app) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+
+        Path source = fileChooser.getSelectedFile().toPath();
+        long start = System.nanoTime();
+        int[] added = {0};
+        app.getUIComponents().setStatus("Loading " + source.getFileName() + "...");
+        playlistIo.execute(() -> {
+            try {
+                int skipped = readPlaylist(source,
+                        batch -> SwingUtilities.invokeLater(() -> added[0] += addPaths(batch)));
+                // Queued behind the last batch, so the count is complete when this runs.
+                SwingUtilities.invokeLater(() -> app.getUIComponents().setStatus("Loaded " + added[0]
+                        + " tracks in " + (System.nanoTime() - start) / 1_000_000 + " ms"
+                        + (skipped > 0 ? ", skipped " + skipped + " unsupported entries" : "")));
+            } catch (IOException e) {
+                SwingUtilities.invokeLater(() -> app.getUIComponents().setStatus("Load failed: " + e.getMessage()));
+            }
+        });
+    }
+
+    private void writePlaylist(Path target) throws IOException {
+        String name = target.getFileName().toString().toLowerCase();
+        if (name.endsWith(".m3u") || name.endsWith(".m3u8")) {
+            PlaylistFiles.exportM3u(target, mediaFiles, this::cachedDurationMillis);
+        } else if (name.endsWith(".pls")) {
+            PlaylistFiles.exportPls(target, mediaFiles, this::cachedDurationMillis);
+        } else {
+            PlaylistFiles.writeBinary(target, mediaFiles);
+        }
+    }
+
+    // Runs on the playlist I/O thread. Streams and files the player cannot open are dropped;
+    // returns how many entries that was.
+    private int readPlaylist(Path source, Consumer<List<String>> batches) throws IOException {
+        String name = source.getFileName().toString().toLowerCase();
+        List<String> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+        int[] skipped = {0};
+        Consumer<String> sink = path -> {
+            if (path.contains("://") || !MediaController.isSupportedFileName(path)) {
+                skipped[0]++;
+                return;
+            }
+            batch.add(path);
+            if (batch.size() == IMPORT_BATCH_SIZE) {
+                batches.accept(List.copyOf(batch));
+                batch.clear();
+            }
+        };
+        if (name.endsWith(".pls")) {
+            PlaylistFiles.importPls(source, sink);
+        } else if (name.endsWith(".m3u") || name.endsWith(".m3u8")) {
+            PlaylistFiles.importM3u(source, sink);
+        } else {
+            PlaylistFiles.openBinary(source).forEach(sink);
+        }
+        if (!batch.isEmpty()) {
+            batches.accept(List.copyOf(batch));
+        }
+        return skipped[0];
+    }
+
+    private long cachedDurationMillis(String path) {
+        MetadataCache.Entry entry = app.getMetadataCache().peek(path);
+        return entry == null ? -1 : entry.getDurationMillis();
+    }
 
-            if (addedAny) {
-                SwingUtilities.invokeLater(() -> {
-                    app.getUIComponents().getPlaylistList().setModel(model);
-                    app.getUIComponents().setStatus("Added " + fileChooser.getSelectedFiles().length + " files");
-                });
+    public void saveSession() {
+        if (!sessionRestored) {
+            return;
+        }
+        try {
+            Path dataDir = MetadataCache.defaultDataDir().toPath();
+            Files.createDirectories(dataDir);
+            PlaylistFiles.writeBinary(dataDir.resolve(SESSION_PLAYLIST), mediaFiles);
+        } catch (IOException e) {
+            System.err.println("Failed to save playlist: " + e.getMessage());
+        }
+    }
 
-                if (currentTrackIndex == -1 && !mediaFiles.isEmpty()) {
-                    currentTrackIndex = 0;
+    // Waits for the metadata cache, so restored rows come up with their durations and tags.
+    public void restoreSession() {
+        app.getMetadataCache().whenLoaded(() -> playlistIo.execute(() -> {
+            Path session = MetadataCache.defaultDataDir().toPath().resolve(SESSION_PLAYLIST);
+            if (Files.exists(session)) {
+                try {
+                    readPlaylist(session, batch -> SwingUtilities.invokeLater(() -> addPaths(batch)));
+                } catch (IOException e) {
+                    System.err.println("Failed to restore playlist: " + e.getMessage());
                 }
             }
+            SwingUtilities.invokeLater(() -> sessionRestored = true);
+        }));
+    }
+
+    public void importLibrary() {
+        if (libraryScanner.isScanning()) {
+            libraryScanner.cancel();
+            app.getUIComponents().setStatus("Cancelling import...");
+            return;
+        }
+
+        JFileChooser directoryChooser = new JFileChooser();
+        directoryChooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        directoryChooser.setCurrentDirectory(new File(System.getProperty("user.home")));
+        if (directoryChooser.showOpenDialog(app) != JFileChooser.APPROVE_OPTION) {
+            return;
         }
+
+        app.getUIComponents().getImportFolderButton().setText("Cancel Import");
+        libraryScanner.scan(directoryChooser.getSelectedFile().toPath(), new LibraryScanner.Listener() {
+            @Override
+            public void onBatch(List<String> paths) {
+                addPaths(paths);
+            }
+
+            @Override
+            public void onProgress(long filesFound, long directoriesScanned, double filesPerSecond) {
+                app.getUIComponents().setStatus(String.format("Importing: %d files in %d folders (%.0f files/s)",
+                        filesFound, directoriesScanned, filesPerSecond));
+            }
+
+            @Override
+            public void onFinished(boolean cancelled, long filesFound, long elapsedMillis) {
+                app.getUIComponents().getImportFolderButton().setText("📁 Import Folder");
+                app.getUIComponents().setStatus((cancelled ? "Import cancelled after " : "Imported ")
+                        + filesFound + " files in " + elapsedMillis + " ms");
+            }
+        });
     }
 
     public void playNextTrack() {
+        move(true, true);
+    }
+
+    public void playPreviousTrack() {
+        move(false, true);
+    }
+
+    // End of media: repeat-one replays the track, anything else advances like "next".
+    public void trackFinished() {
+        String current = getCurrentFilePath();
+        if (playQueue.getRepeatMode() == PlayQueue.RepeatMode.ONE && current != null) {
+            app.getMediaController().loadNextMediaFile(current);
+            return;
+        }
+        move(true, true);
+    }
+
+    // Asks the play queue for candidates, passing entries already known to be missing, then
+    // drops those all at once. Entries not checked yet count as playable; if the loader finds
+    // one gone, fileMissing() carries on from there.
+    private void move(boolean forward, boolean recordHistory) {
         if (mediaFiles.isEmpty()) {
             app.getUIComponents().setStatus("Playlist empty");
             return;
         }
-
-        if (currentTrackIndex == -1) {
-            currentTrackIndex = 0;
-            String firstFile = mediaFiles.get(currentTrackIndex);
-            if (new File(firstFile).exists()) {
-                app.getUIComponents().setSelectedPlaylistIndex(currentTrackIndex);
-                app.getMediaController().loadMediaFile(firstFile);
+        FileStatusService fileStatus = app.getFileStatus();
+        String left = getCurrentFilePath();
+        Set<Integer> missing = new LinkedHashSet<>();
+        String target = null;
+        int index = currentTrackIndex;
+        for (int attempt = 0; attempt < mediaFiles.size(); attempt++) {
+            index = forward ? playQueue.next(index) : playQueue.previous(index);
+            if (index == -1) {
+                break;
+            }
+            String path = mediaFiles.get(index);
+            if (fileStatus.status(path) == FileStatusService.Status.MISSING) {
+                missing.add(index);
             } else {
-                removeAt(currentTrackIndex);
-                playNextTrack();
+                target = path;
+                break;
             }
-            return;
         }
-
-        int newIndex = (currentTrackIndex + 1) % mediaFiles.size();
-        if (newIndex == currentTrackIndex) {
-            String currentFile = mediaFiles.get(currentTrackIndex);
-            if (new File(currentFile).exists()) {
-                app.getUIComponents().setSelectedPlaylistIndex(currentTrackIndex);
-                app.getMediaController().loadMediaFile(currentFile);
+        // Removal shifts the target down by the number of dropped entries before it.
+        int targetIndex = index;
+        for (int dropped : missing) {
+            if (dropped < index) {
+                targetIndex--;
+            }
+        }
+        removeMissing(new ArrayList<>(missing));
+        if (target == null) {
+            if (!missing.isEmpty()) {
+                currentTrackIndex = -1;
+                app.getUIComponents().setStatus("No playable files left");
             } else {
-                removeAt(currentTrackIndex);
-                playNextTrack();
+                app.getUIComponents().setStatus("End of playlist");
             }
+            publishState();
             return;
         }
 
-        String nextFile = mediaFiles.get(newIndex);
-        if (new File(nextFile).exists()) {
-            currentTrackIndex = newIndex;
-            app.getUIComponents().setSelectedPlaylistIndex(currentTrackIndex);
-            app.getMediaController().loadMediaFile(nextFile);
+        if (recordHistory && left != null && !left.equals(target)) {
+            if (forward) {
+                playQueue.advanced(left);
+            } else {
+                playQueue.retreated(left);
+            }
+        }
+        movingForward = forward;
+        currentTrackIndex = targetIndex;
+        app.getUIComponents().setSelectedPlaylistIndex(currentTrackIndex);
+        if (forward) {
+            app.getMediaController().loadNextMediaFile(target);
         } else {
-            removeAt(newIndex);
-            playNextTrack();
+            app.getMediaController().loadMediaFile(target);
         }
+        prefetchAround(currentTrackIndex);
+        publishState();
     }
 
-    public void playPreviousTrack() {
-        if (mediaFiles.isEmpty()) {
-            app.getUIComponents().setStatus("Playlist empty");
+    // Called when loading found the file gone. If it was the current track, playback moves
+    // on in the direction it was heading.
+    public void fileMissing(String path) {
+        int index = mediaFiles.indexOf(path);
+        if (index == -1) {
             return;
         }
+        boolean wasCurrent = index == currentTrackIndex;
+        removeAt(index);
+        app.getUIComponents().setStatus("File not found: " + new File(path).getName());
+        if (wasCurrent && !mediaFiles.isEmpty()) {
+            // Position the cursor so playlist order resumes where the dead entry was.
+            currentTrackIndex = movingForward ? index - 1 : Math.min(index, mediaFiles.size());
+            move(movingForward, false);
+        }
+    }
 
-        int newIndex = (currentTrackIndex - 1 + mediaFiles.size()) % mediaFiles.size();
-        String prevFile = mediaFiles.get(newIndex);
+    public void queueNext(int index) {
+        if (index >= 0 && index < mediaFiles.size()) {
+            String path = mediaFiles.get(index);
+            playQueue.enqueue(path);
+            app.getFileStatus().prefetch(List.of(path));
+            publishState();
+            app.getUIComponents().setStatus("Queued " + new File(path).getName()
+                    + " (" + playQueue.getUpNextCount() + " up next)");
+        }
+    }
 
-        if (new File(prevFile).exists()) {
-            currentTrackIndex = newIndex;
-            app.getUIComponents().setSelectedPlaylistIndex(currentTrackIndex);
-            app.getMediaController().loadMediaFile(prevFile);
-        } else {
-            removeAt(newIndex);
-            playPreviousTrack();
+    public boolean toggleShuffle() {
+        playQueue.setShuffle(!playQueue.isShuffle());
+        publishState();
+        return playQueue.isShuffle();
+    }
+
+    public PlayQueue.RepeatMode cycleRepeatMode() {
+        PlayQueue.RepeatMode[] modes = PlayQueue.RepeatMode.values();
+        playQueue.setRepeatMode(modes[(playQueue.getRepeatMode().ordinal() + 1) % modes.length]);
+        publishState();
+        return playQueue.getRepeatMode();
+    }
+
+    public PlayQueue getPlayQueue() {
+        return playQueue;
+    }
+
+    private void removeMissing(List<Integer> indices) {
+        List<String> removed = removeIndices(indices);
+        if (!removed.isEmpty()) {
+            app.getUIComponents().setStatus(removed.size() == 1
+                    ? "Removed: " + new File(removed.get(0)).getName()
+                    : "Skipped " + removed.size() + " missing files");
+        }
+    }
+
+    // Removes the entries in one store batch and with one model update per contiguous run.
+    private List<String> removeIndices(List<Integer> indices) {
+        if (indices.isEmpty()) {
+            return List.of();
+        }
+        int[] ascending = indices.stream().mapToInt(Integer::intValue).sorted().toArray();
+        int[] descending = new int[ascending.length];
+        for (int i = 0; i < ascending.length; i++) {
+            descending[i] = ascending[ascending.length - 1 - i];
+        }
+
+        List<String> removed = mediaFiles.removeDescending(descending);
+        int current = currentTrackIndex;
+        for (int index : descending) {
+            if (current == index) {
+                app.getMediaController().stopMedia();
+                currentTrackIndex = -1;
+                break;
+            } else if (current > index) {
+                currentTrackIndex--;
+            }
+        }
+        if (libraryWatcher != null) {
+            libraryWatcher.untrack(removed);
         }
+        searchIndex.removeAll(removed);
+        trackTable.removeAll(removed);
+        app.getUIComponents().getPlaylistModel().pathsRemoved(descending);
+        publishState();
+        return removed;
+    }
+
+    // Applies one debounced batch from the library watcher. The playing track is left in place
+    // when its file disappears; the player still has it open, and navigation drops it later.
+    private void applyLibraryChanges(LibraryWatcher.Changes changes) {
+        FileStatusService fileStatus = app.getFileStatus();
+        int renamed = 0;
+        for (Map.Entry<String, String> rename : changes.getRenamed().entrySet()) {
+            int index = mediaFiles.indexOf(rename.getKey());
+            fileStatus.invalidate(rename.getKey());
+            if (index != -1 && !mediaFiles.contains(rename.getValue())) {
+                mediaFiles.set(index, rename.getValue());
+                app.getUIComponents().getPlaylistModel().pathReplaced(index, rename.getKey());
+                libraryWatcher.untrack(List.of(rename.getKey()));
+                libraryWatcher.track(List.of(rename.getValue()));
+                searchIndex.removeAll(List.of(rename.getKey()));
+                searchIndex.addAll(List.of(rename.getValue()));
+                trackTable.rename(rename.getKey(), rename.getValue());
+                renamed++;
+            }
+        }
+        if (renamed > 0) {
+            publishState();
+        }
+
+        List<Integer> gone = new ArrayList<>();
+        for (String path : changes.getRemoved()) {
+            fileStatus.invalidate(path);
+            int index = mediaFiles.indexOf(path);
+            if (index != -1 && index != currentTrackIndex) {
+                gone.add(index);
+            }
+        }
+        int removed = removeIndices(gone).size();
+
+        for (String path : changes.getModified()) {
+            fileStatus.invalidate(path);
+            metadataUpdated(path);
+        }
+        app.getPeakIndexer().enqueue(changes.getModified());
+        app.getLoudnessScanner().enqueue(changes.getModified());
+
+        int added = addPaths(changes.getAdded());
+        app.getUIComponents().setStatus("Library sync: " + added + " added, " + removed + " removed, "
+                + renamed + " renamed, " + changes.getModified().size() + " changed");
+        libraryWatcher.batchApplied(changes);
+    }
+
+    // Gets the neighbourhood of the current track checked before next/previous needs it.
+    private void prefetchAround(int index) {
+        int size = mediaFiles.size();
+        if (index < 0 || size == 0) {
+            return;
+        }
+        int ahead = Math.min(PREFETCH_AHEAD, size);
+        int behind = Math.min(PREFETCH_BEHIND, size - ahead);
+        List<String> paths = new ArrayList<>(ahead + behind);
+        for (int i = 0; i < ahead; i++) {
+            paths.add(mediaFiles.get((index + i) % size));
+        }
+        for (int i = 1; i <= behind; i++) {
+            paths.add(mediaFiles.get(Math.floorMod(index - i, size)));
+        }
+        String next = peekNextTrackPath();
+        if (next != null) {
+            paths.add(next);
+        }
+        app.getFileStatus().prefetch(paths);
     }
 
     public void playCurrentTrack() {
@@ -130,36 +540,245 @@ public class PlaylistManager {
     public void removeAt(int index) {
         if (index >= 0 && index < mediaFiles.size()) {
             String removedFile = mediaFiles.remove(index);
-            app.getUIComponents().setStatus("Removed: " + new File(removedFile).getName());
-            app.getUIComponents().refreshPlaylistDisplay(mediaFiles);
-
-            DefaultListModel<String> model = new DefaultListModel<>();
-            for (String file : mediaFiles) {
-                model.addElement(new File(file).getName());
+            if (libraryWatcher != null) {
+                libraryWatcher.untrack(List.of(removedFile));
             }
-            app.getUIComponents().getPlaylistList().setModel(model);
+            searchIndex.removeAll(List.of(removedFile));
+            trackTable.removeAll(List.of(removedFile));
+            app.getUIComponents().setStatus("Removed: " + new File(removedFile).getName());
             if (currentTrackIndex == index) {
                 app.getMediaController().stopMedia();
                 currentTrackIndex = -1;
             } else if (currentTrackIndex > index) {
                 currentTrackIndex--;
             }
+            app.getUIComponents().getPlaylistModel().pathRemoved(index);
+            publishState();
         }
     }
 
     public void clearPlaylist() {
+        int previousSize = mediaFiles.size();
         mediaFiles.clear();
-        app.getUIComponents().clearPlaylist();
+        playQueue.clear();
+        searchIndex.clear();
+        trackTable.clear();
+        if (libraryWatcher != null) {
+            libraryWatcher.untrackAll();
+        }
+        app.getUIComponents().clearPlaylist(previousSize);
         app.getMediaController().stopMedia();
-        app.getUIComponents().refreshPlaylistDisplay(mediaFiles);
         currentTrackIndex = -1;
+        publishState();
         app.getUIComponents().setStatus("Playlist cleared");
     }
 
+    public LibraryWatcher getLibraryWatcher() {
+        return libraryWatcher;
+    }
+
     public List<String> getMediaFiles() {
         return mediaFiles;
     }
 
+    public String displayNameFor(String path) {
+        String name = new File(path).getName();
+        MetadataCache.Entry entry = app.getMetadataCache().peek(path);
+        return entry == null ? name : name + "  (" + MediaController.formatTime(entry.getDurationMillis()) + ")";
+    }
+
+    public long getTotalRuntimeMillis() {
+        long total = 0;
+        for (String path : mediaFiles) {
+            MetadataCache.Entry entry = app.getMetadataCache().peek(path);
+            if (entry != null) {
+                total += entry.getDurationMillis();
+            }
+        }
+        return total;
+    }
+
+    public void metadataUpdated(String path) {
+        int index = mediaFiles.indexOf(path);
+        if (index != -1) {
+            app.getUIComponents().getPlaylistModel().pathUpdated(index, path);
+            searchIndex.update(path);
+            trackTable.update(path);
+            viewChanged();
+        }
+    }
+
+    // Audio actually started for this track.
+    public void trackPlayed(String path) {
+        long now = System.currentTimeMillis();
+        app.getMetadataCache().recordPlay(path, now);
+        trackTable.played(path, now);
+        viewChanged();
+    }
+
+    // Shows one of VIEWS in the sidebar. The view lists rows of the track table, so nothing
+    // is copied however large the playlist is.
+    public void showView(int view) {
+        showView(view, true);
+    }
+
+    // Refreshes leave the status line alone, since they follow imports, plays and edits.
+    private void showView(int view, boolean announce) {
+        currentView = view;
+        TrackTable.Filter filter = TrackTable.Filter.all();
+        TrackTable.Column sortBy = null;
+        boolean descending = true;
+        switch (view) {
+            case 1:
+                sortBy = TrackTable.Column.DURATION;
+                break;
+            case 2:
+                sortBy = TrackTable.Column.SIZE;
+                break;
+            case 3:
+                sortBy = TrackTable.Column.ADDED;
+                break;
+            case 4:
+                sortBy = TrackTable.Column.MODIFIED;
+                break;
+            case 5:
+                sortBy = TrackTable.Column.ARTIST;
+                descending = false;
+                break;
+            case 6:
+                sortBy = TrackTable.Column.ALBUM;
+                descending = false;
+                break;
+            case 7:
+                sortBy = TrackTable.Column.FOLDER;
+                descending = false;
+                break;
+            case 8:
+                sortBy = TrackTable.Column.PLAY_COUNT;
+                break;
+            case 9:
+                filter = TrackTable.Filter.unplayed();
+                break;
+            case 10:
+                String current = getCurrentFilePath();
+                if (current == null) {
+                    // Falls back to the playlist, so refreshes do not keep reporting this.
+                    app.getUIComponents().setSelectedView(0);
+                    showView(0, false);
+                    app.getUIComponents().setStatus("No current track");
+                    return;
+                }
+                // Tracks not probed yet may well be long; they sort after the known ones.
+                filter = TrackTable.Filter.unplayed()
+                        .and(TrackTable.Filter.longerThan(LONG_TRACK_MILLIS, true))
+                        .and(TrackTable.Filter.inFolder(TrackTable.folderOf(current)));
+                sortBy = TrackTable.Column.DURATION;
+                break;
+            default:
+                trackTable.cancel();
+                app.getUIComponents().showPlaylist();
+                return;
+        }
+        trackTable.query(filter, sortBy, descending, result -> SwingUtilities.invokeLater(() -> {
+            if (trackTable.isCurrent(result.getGeneration())) {
+                app.getUIComponents().showTrackView(result);
+                if (announce) {
+                    app.getUIComponents().setStatus(VIEWS.get(view) + ": " + result.size() + " tracks ("
+                            + result.getElapsedNanos() / 1_000 + " us)");
+                }
+            }
+        }));
+    }
+
+    public TrackTable getTrackTable() {
+        return trackTable;
+    }
+
+    // Type-ahead from the search box. Results arrive on the EDT only if no newer text was typed.
+    public void search(String text) {
+        searching = !text.isBlank();
+        if (!searching) {
+            searchIndex.cancel();
+            showView(currentView);
+            return;
+        }
+        searchIndex.query(text, SEARCH_RESULT_LIMIT, result -> SwingUtilities.invokeLater(() -> {
+            if (searchIndex.isCurrent(result.getGeneration())) {
+                app.getUIComponents().showSearchResults(result.getPaths());
+                app.getUIComponents().setStatus(result.getPaths().size()
+                        + (result.getPaths().size() == SEARCH_RESULT_LIMIT ? "+" : "") + " matches for \""
+                        + result.getQuery() + "\" (" + result.getElapsedNanos() / 1_000 + " us)");
+            }
+        }));
+    }
+
+    public void playSearchResult(String path) {
+        int index = mediaFiles.indexOf(path);
+        if (index == -1) {
+            return;
+        }
+        setCurrentTrackIndex(index);
+        app.getUIComponents().setSelectedPlaylistIndex(index);
+        app.getUIComponents().getPlaylistList().ensureIndexIsVisible(index);
+        app.getMediaController().loadMediaFile(path);
+    }
+
+    // File name plus whatever tags are cached; runs on the search thread.
+    private String searchableText(String path) {
+        String name = new File(path).getName();
+        MetadataCache.Entry entry = app.getMetadataCache().peek(path);
+        if (entry == null || entry.getTags().isEmpty()) {
+            return name;
+        }
+        StringBuilder text = new StringBuilder(name);
+        for (String value : entry.getTags().values()) {
+            text.append(' ').append(value);
+        }
+        return text.toString();
+    }
+
+    public SearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    // Any thread.
+    public String getPreloadCandidate() {
+        return preloadCandidate;
+    }
+
+    // Refreshes what other threads read instead of touching the playlist, the preload
+    // candidate and the playlist size, and schedules the active view to catch up.
+    private void publishState() {
+        preloadCandidate = peekNextTrackPath();
+        playlistSize = mediaFiles.size();
+        viewChanged();
+    }
+
+    private void viewChanged() {
+        if (currentView != 0 && !searching) {
+            viewRefresh.restart();
+        }
+    }
+
+    private void refreshView() {
+        if (currentView != 0 && !searching) {
+            showView(currentView, false);
+        }
+    }
+
+    // Any thread, e.g. metrics.
+    public int getPlaylistSize() {
+        return playlistSize;
+    }
+
+    private String peekNextTrackPath() {
+        if (playQueue.getRepeatMode() == PlayQueue.RepeatMode.ONE && getCurrentFilePath() != null) {
+            return getCurrentFilePath();
+        }
+        int nextIndex = playQueue.peekNext(currentTrackIndex);
+        return nextIndex == -1 ? null : mediaFiles.get(nextIndex);
+    }
+
     public String getCurrentFilePath() {
         return (currentTrackIndex >= 0 && currentTrackIndex < mediaFiles.size())
                 ? mediaFiles.get(currentTrackIndex) : null;
@@ -167,15 +786,19 @@ public class PlaylistManager {
 
     public void setCurrentTrackIndex(int index) {
         if (index >= 0 && index < mediaFiles.size()) {
+            String left = getCurrentFilePath();
+            if (left != null && index != currentTrackIndex) {
+                playQueue.jumped(left);
+            }
             currentTrackIndex = index;
+            movingForward = true;
+            prefetchAround(index);
+            publishState();
         }
     }
 
     private boolean isSupported(File file) {
-        String name = file.getName().toLowerCase();
-        return name.endsWith(".mp3") || name.endsWith(".wav") || name.endsWith(".aac") ||
-                name.endsWith(".m4a") || name.endsWith(".mp4") || name.endsWith(".avi") ||
-                name.endsWith(".mkv") || name.endsWith(".mov");
+        return MediaController.isSupportedFileName(file.getName());
     }
 
     public void refreshPlaylist() {
@@ -183,8 +806,6 @@ public class PlaylistManager {
     }
 
     public boolean hasNextTrack() {
-        if (mediaFiles.isEmpty()) return false;
-        if (currentTrackIndex == -1) return true;
-        return (currentTrackIndex + 1) < mediaFiles.size();
+        return playQueue.peekNext(currentTrackIndex) != -1;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,250 @@
+package org.example.logic;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+// Insertion-ordered list of unique paths. Paths live in an append-only slot array with a
+// path -> slot hash index; removal leaves a tombstone instead of shifting the tail. A
+// Fenwick tree over the slots counts live entries, so turning a slot into a list index and
+// back is O(log n), and while nothing is tombstoned slot and index coincide and both
+// directions are O(1). Once tombstones make up half the slots they are compacted in one
+// pass, which keeps removal amortized O(log n).
+public class PlaylistStore extends AbstractList<String> implements RandomAccess {
+    private static final int INITIAL_CAPACITY = 1_024;
+    private static final int MIN_COMPACT_TOMBSTONES = 1_024;
+
+    private final Map<String, Integer> slotByPath = new HashMap<>();
+    private String[] slots = new String[INITIAL_CAPACITY];
+    // 1-based Fenwick tree; node i covers slots (i - lowbit(i), i].
+    private int[] liveCounts = new int[INITIAL_CAPACITY + 1];
+    private int slotCount;
+    private int tombstones;
+
+    @Override
+    public String get(int index) {
+        return slots[slotOf(index)];
+    }
+
+    @Override
+    public int size() {
+        return slotCount - tombstones;
+    }
+
+    // Returns false without modifying the store if the path is already present.
+    @Override
+    public boolean add(String path) {
+        if (slotByPath.containsKey(path)) {
+            return false;
+        }
+        if (slotCount == slots.length) {
+            rebuild(tombstones * 2 >= slotCount ? slots.length : slots.length * 2);
+        }
+        int slot = slotCount++;
+        slots[slot] = path;
+        slotByPath.put(path, slot);
+        addLive(slot, 1);
+        modCount++;
+        return true;
+    }
+
+    // Replaces the path in place, e.g. after a rename. The new path must not be present yet.
+    @Override
+    public String set(int index, String path) {
+        int slot = slotOf(index);
+        String previous = slots[slot];
+        if (previous.equals(path)) {
+            return previous;
+        }
+        if (slotByPath.containsKey(path)) {
+            throw new IllegalArgumentException("Already in playlist: " + path);
+        }
+        slots[slot] = path;
+        slotByPath.remove(previous);
+        slotByPath.put(path, slot);
+        return previous;
+    }
+
+    @Override
+    public String remove(int index) {
+        String removed = release(slotOf(index));
+        compactIfSparse();
+        modCount++;
+        return removed;
+    }
+
+    // Removes a batch given in strictly descending order, so each index is still valid when
+    // it is reached; tombstones are compacted at most once for the whole batch.
+    public List<String> removeDescending(int[] indices) {
+        List<String> removed = new ArrayList<>(indices.length);
+        for (int index : indices) {
+            removed.add(release(slotOf(index)));
+        }
+        compactIfSparse();
+        modCount++;
+        return removed;
+    }
+
+    private String release(int slot) {
+        String removed = slots[slot];
+        slotByPath.remove(removed);
+        addLive(slot, -1);
+        slots[slot] = null;
+        if (slot == slotCount - 1) {
+            // Dropping the last slot needs no tombstone, so the common "clean" state survives.
+            slotCount--;
+        } else {
+            tombstones++;
+        }
+        return removed;
+    }
+
+    private void compactIfSparse() {
+        if (tombstones >= MIN_COMPACT_TOMBSTONES && tombstones * 2 >= slotCount) {
+            rebuild(slots.length);
+        }
+    }
+
+    @Override
+    public boolean remove(Object path) {
+        int index = indexOf(path);
+        if (index == -1) {
+            return false;
+        }
+        remove(index);
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object path) {
+        return slotByPath.containsKey(path);
+    }
+
+    @Override
+    public int indexOf(Object path) {
+        Integer slot = slotByPath.get(path);
+        if (slot == null) {
+            return -1;
+        }
+        return tombstones == 0 ? slot : liveBefore(slot);
+    }
+
+    @Override
+    public int lastIndexOf(Object path) {
+        return indexOf(path);
+    }
+
+    @Override
+    public void clear() {
+        slotByPath.clear();
+        slots = new String[INITIAL_CAPACITY];
+        liveCounts = new int[INITIAL_CAPACITY + 1];
+        slotCount = 0;
+        tombstones = 0;
+        modCount++;
+    }
+
+    // Walks the slots directly; positional get() would cost O(log n) per step with tombstones.
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<>() {
+            private final int expectedModCount = modCount;
+            private int slot = nextLive(0);
+
+            @Override
+            public boolean hasNext() {
+                return slot < slotCount;
+            }
+
+            @Override
+            public String next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (slot >= slotCount) {
+                    throw new NoSuchElementException();
+                }
+                String path = slots[slot];
+                slot = nextLive(slot + 1);
+                return path;
+            }
+        };
+    }
+
+    private int nextLive(int slot) {
+        while (slot < slotCount && slots[slot] == null) {
+            slot++;
+        }
+        return slot;
+    }
+
+    private int slotOf(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size());
+        }
+        if (tombstones == 0) {
+            return index;
+        }
+        // Descend the tree for the slot with exactly index live slots before it.
+        int position = 0;
+        int remaining = index;
+        for (int step = Integer.highestOneBit(slots.length); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next <= slots.length && liveCounts[next] <= remaining) {
+                position = next;
+                remaining -= liveCounts[next];
+            }
+        }
+        return position;
+    }
+
+    // Number of live slots below the given slot, i.e. its list index.
+    private int liveBefore(int slot) {
+        int count = 0;
+        for (int i = slot; i > 0; i -= i & -i) {
+            count += liveCounts[i];
+        }
+        return count;
+    }
+
+    private void addLive(int slot, int delta) {
+        for (int i = slot + 1; i < liveCounts.length; i += i & -i) {
+            liveCounts[i] += delta;
+        }
+    }
+
+    // Drops the tombstones and rebuilds the tree in linear time.
+    private void rebuild(int capacity) {
+        String[] compacted = new String[capacity];
+        int count = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            String path = slots[slot];
+            if (path != null) {
+                compacted[count] = path;
+                if (tombstones > 0) {
+                    slotByPath.put(path, count);
+                }
+                count++;
+            }
+        }
+        int[] counts = new int[capacity + 1];
+        Arrays.fill(counts, 1, count + 1, 1);
+        for (int i = 1; i <= capacity; i++) {
+            int parent = i + (i & -i);
+            if (parent <= capacity) {
+                counts[parent] += counts[i];
+            }
+        }
+        slots = compacted;
+        liveCounts = counts;
+        slotCount = count;
+        tombstones = 0;
+    }
+}
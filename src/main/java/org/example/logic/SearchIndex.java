@@ -0,0 +1,377 @@
+package org.example.logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// In-memory trigram index over the playlist's searchable text (file name plus tags). Every
+// path gets a document id in insertion order, and each trigram keeps an ascending id list,
+// so additions only append. Removals leave tombstones that queries skip; once they make
+// up half the index it is compacted in one pass. Queries intersect the posting lists of the
+// rarest trigrams and confirm each candidate with a substring check, stopping at the limit;
+// terms shorter than three characters are checked directly. All work runs on one "search"
+// thread, and a query is dropped as soon as a newer one is submitted.
+public class SearchIndex {
+    private static final int INITIAL_POSTINGS = 4;
+
+    public static final class Result {
+        private final long generation;
+        private final String query;
+        private final List<String> paths;
+        private final long elapsedNanos;
+
+        Result(long generation, String query, List<String> paths, long elapsedNanos) {
+            this.generation = generation;
+            this.query = query;
+            this.paths = paths;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getGeneration() {
+            return generation;
+        }
+
+        public String getQuery() {
+            return query;
+        }
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+    }
+
+    private static final class Postings {
+        int[] ids = new int[INITIAL_POSTINGS];
+        int size;
+
+        // Ids are handed out in ascending order, so appending keeps the list sorted. Returns the
+        // number of array slots added.
+        int add(int id) {
+            if (size > 0 && ids[size - 1] == id) {
+                return 0;
+            }
+            int grown = 0;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                grown = size;
+            }
+            ids[size++] = id;
+            return grown;
+        }
+    }
+
+    private final Function<String, String> describer;
+    private final ExecutorService executor;
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final Map<String, Integer> idByPath = new HashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong totalQueryNanos = new AtomicLong();
+    private String[] paths = new String[1_024];
+    private String[] texts = new String[1_024];
+    private int nextId;
+    private int tombstones;
+    private long postingSlots;
+    private long textBytes;
+    private volatile int liveCount;
+    private volatile long memoryBytes;
+    private volatile long lastQueryNanos;
+
+    // describer maps a path to its searchable text; it runs on the search thread.
+    public SearchIndex(Function<String, String> describer) {
+        this.describer = describer;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "search");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void addAll(Collection<String> added) {
+        List<String> copy = new ArrayList<>(added);
+        executor.execute(() -> {
+            for (String path : copy) {
+                index(path);
+            }
+            updateStats();
+        });
+    }
+
+    public void removeAll(Collection<String> removed) {
+        List<String> copy = new ArrayList<>(removed);
+        executor.execute(() -> {
+            for (String path : copy) {
+                unindex(path);
+            }
+            compactIfNeeded();
+            updateStats();
+        });
+    }
+
+    // Re-reads the searchable text, e.g. after tags became known or the file was renamed.
+    public void update(String path) {
+        executor.execute(() -> {
+            if (unindex(path)) {
+                index(path);
+            }
+            compactIfNeeded();
+            updateStats();
+        });
+    }
+
+    public void clear() {
+        executor.execute(() -> {
+            postings.clear();
+            idByPath.clear();
+            paths = new String[1_024];
+            texts = new String[1_024];
+            nextId = 0;
+            tombstones = 0;
+            postingSlots = 0;
+            textBytes = 0;
+            updateStats();
+        });
+    }
+
+    // Runs the query on the search thread and hands the result to the callback there, unless
+    // a newer query was submitted in the meantime. Returns the query's generation.
+    public long query(String text, int limit, Consumer<Result> callback) {
+        long requested = generation.incrementAndGet();
+        executor.execute(() -> {
+            if (!isCurrent(requested)) {
+                cancelled.incrementAndGet();
+                return;
+            }
+            long start = System.nanoTime();
+            List<String> found = search(normalize(text), limit, requested);
+            if (found == null) {
+                cancelled.incrementAndGet();
+                return;
+            }
+            long elapsed = System.nanoTime() - start;
+            lastQueryNanos = elapsed;
+            totalQueryNanos.addAndGet(elapsed);
+            queries.incrementAndGet();
+            callback.accept(new Result(requested, text, found, elapsed));
+        });
+        return requested;
+    }
+
+    // Drops any query still waiting or running.
+    public void cancel() {
+        generation.incrementAndGet();
+    }
+
+    public boolean isCurrent(long requested) {
+        return generation.get() == requested;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void index(String path) {
+        if (idByPath.containsKey(path)) {
+            return;
+        }
+        String text;
+        try {
+            text = normalize(describer.apply(path));
+        } catch (RuntimeException e) {
+            text = normalize(path);
+        }
+        int id = nextId++;
+        if (id == paths.length) {
+            paths = Arrays.copyOf(paths, id * 2);
+            texts = Arrays.copyOf(texts, id * 2);
+        }
+        store(id, path, text);
+    }
+
+    private void store(int id, String path, String text) {
+        paths[id] = path;
+        texts[id] = text;
+        idByPath.put(path, id);
+        textBytes += 40 + text.length();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            long key = trigram(text, i);
+            Postings list = postings.get(key);
+            if (list == null) {
+                list = new Postings();
+                postings.put(key, list);
+                postingSlots += INITIAL_POSTINGS;
+            }
+            postingSlots += list.add(id);
+        }
+    }
+
+    private boolean unindex(String path) {
+        Integer id = idByPath.remove(path);
+        if (id == null) {
+            return false;
+        }
+        textBytes -= 40 + texts[id].length();
+        paths[id] = null;
+        texts[id] = null;
+        tombstones++;
+        return true;
+    }
+
+    // Rebuilds ids and posting lists without the tombstones; order is preserved.
+    private void compactIfNeeded() {
+        if (tombstones < 1_024 || tombstones * 2 < nextId) {
+            return;
+        }
+        String[] oldPaths = paths;
+        String[] oldTexts = texts;
+        int oldCount = nextId;
+        postings.clear();
+        idByPath.clear();
+        paths = new String[Math.max(1_024, Integer.highestOneBit(Math.max(1, oldCount - tombstones)) * 2)];
+        texts = new String[paths.length];
+        nextId = 0;
+        tombstones = 0;
+        postingSlots = 0;
+        textBytes = 0;
+        for (int i = 0; i < oldCount; i++) {
+            if (oldPaths[i] != null) {
+                store(nextId++, oldPaths[i], oldTexts[i]);
+            }
+        }
+    }
+
+    // Null when a newer query superseded this one part-way.
+    private List<String> search(String query, int limit, long requested) {
+        String[] terms = query.trim().split("\\s+");
+        List<String> found = new ArrayList<>(Math.min(limit, 256));
+        if (terms.length == 0 || terms[0].isEmpty()) {
+            return found;
+        }
+
+        // Every trigram of every term must be present; intersect starting from the rarest.
+        List<Postings> lists = new ArrayList<>();
+        for (String term : terms) {
+            for (int i = 0; i + 3 <= term.length(); i++) {
+                Postings list = postings.get(trigram(term, i));
+                if (list == null) {
+                    return found;
+                }
+                lists.add(list);
+            }
+        }
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+
+        if (lists.isEmpty()) {
+            // Only short terms: scan in playlist order, which finds common matches quickly.
+            for (int id = 0; id < nextId && found.size() < limit; id++) {
+                if ((id & 4_095) == 0 && !isCurrent(requested)) {
+                    return null;
+                }
+                if (texts[id] != null && matchesAll(texts[id], terms)) {
+                    found.add(paths[id]);
+                }
+            }
+            return found;
+        }
+
+        Postings rarest = lists.get(0);
+        int[] cursors = new int[lists.size()];
+        for (int i = 0; i < rarest.size && found.size() < limit; i++) {
+            if ((i & 4_095) == 0 && !isCurrent(requested)) {
+                return null;
+            }
+            int id = rarest.ids[i];
+            if (texts[id] == null || !inAll(lists, cursors, id)) {
+                continue;
+            }
+            if (matchesAll(texts[id], terms)) {
+                found.add(paths[id]);
+            }
+        }
+        return found;
+    }
+
+    // Advances each list's cursor to id by galloping; ids are ascending, so cursors never rewind.
+    private static boolean inAll(List<Postings> lists, int[] cursors, int id) {
+        for (int l = 1; l < lists.size(); l++) {
+            Postings list = lists.get(l);
+            int low = cursors[l];
+            int bound = 1;
+            while (low + bound < list.size && list.ids[low + bound] < id) {
+                bound <<= 1;
+            }
+            int position = Arrays.binarySearch(list.ids, low, Math.min(low + bound + 1, list.size), id);
+            if (position >= 0) {
+                cursors[l] = position;
+            } else {
+                cursors[l] = -position - 1;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matchesAll(String text, String[] terms) {
+        for (String term : terms) {
+            if (!text.contains(term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long trigram(String text, int offset) {
+        return ((long) text.charAt(offset) << 32) | ((long) text.charAt(offset + 1) << 16) | text.charAt(offset + 2);
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    // Rough heap estimate: id arrays, posting arrays with their map entries, and the stored
+    // lower-cased text. Paths themselves are shared with the playlist.
+    private void updateStats() {
+        memoryBytes = (long) paths.length * 8 * 2 + idByPath.size() * 48L
+                + postings.size() * 96L + postingSlots * 4 + textBytes;
+        liveCount = idByPath.size();
+    }
+
+    public int getEntryCount() {
+        return liveCount;
+    }
+
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    public long getQueryCount() {
+        return queries.get();
+    }
+
+    public long getCancelledCount() {
+        return cancelled.get();
+    }
+
+    public long getLastQueryNanos() {
+        return lastQueryNanos;
+    }
+
+    public long getAverageQueryNanos() {
+        long count = queries.get();
+        return count == 0 ? 0 : totalQueryNanos.get() / count;
+    }
+}
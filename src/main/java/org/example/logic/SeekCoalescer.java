@@ -0,0 +1,142 @@
+package org.example.logic;
+
+import javax.swing.Timer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+// Turns a stream of scrub positions into a few real seeks. Drag updates only replace the
+// pending target; after a short quiet period the latest one is applied, and while the
+// player has not yet reported reaching the previous target, newer targets keep waiting.
+// Latency is measured from the first request of a target until the player reports a
+// position near it by jumping there; playback that merely runs into the target, e.g. after
+// a short forward seek, does not count as the seek landing.
+public class SeekCoalescer {
+    private static final int DEBOUNCE_MILLIS = 40;
+    private static final long IN_FLIGHT_TIMEOUT_NANOS = 250_000_000L;
+    private static final long ARRIVAL_TOLERANCE_MILLIS = 100;
+    private static final long NONE = -1;
+
+    public interface Listener {
+        void seekCompleted(long targetMillis, long latencyNanos);
+    }
+
+    private final LongConsumer seeker;
+    private final Timer debounceTimer;
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private long pendingTarget = NONE;
+    private long pendingSinceNanos;
+    private volatile long inFlightTarget = NONE;
+    private volatile long inFlightSinceNanos;
+    private volatile long inFlightRequestedNanos;
+    private volatile long lastLatencyNanos;
+    // Previous position report, to tell a jump from continuous playback. One reporter at a time.
+    private long lastPositionMillis;
+    private long lastPositionNanos;
+    private volatile Listener listener;
+
+    public SeekCoalescer(LongConsumer seeker) {
+        this.seeker = seeker;
+        this.debounceTimer = new Timer(DEBOUNCE_MILLIS, e -> applyPending(false));
+        this.debounceTimer.setRepeats(false);
+    }
+
+    // EDT only. Called for every drag event; the seek itself is deferred.
+    public void request(long targetMillis) {
+        requested.incrementAndGet();
+        if (pendingTarget == NONE) {
+            pendingSinceNanos = System.nanoTime();
+        }
+        pendingTarget = targetMillis;
+        debounceTimer.restart();
+    }
+
+    // EDT only. Applies the target right away, e.g. when the drag ends.
+    public void commit(long targetMillis) {
+        requested.incrementAndGet();
+        if (pendingTarget == NONE) {
+            pendingSinceNanos = System.nanoTime();
+        }
+        pendingTarget = targetMillis;
+        debounceTimer.stop();
+        applyPending(true);
+    }
+
+    private void applyPending(boolean force) {
+        if (pendingTarget == NONE) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (!force && inFlightTarget != NONE && now - inFlightSinceNanos < IN_FLIGHT_TIMEOUT_NANOS) {
+            debounceTimer.restart();
+            return;
+        }
+        long target = pendingTarget;
+        inFlightRequestedNanos = pendingSinceNanos;
+        inFlightSinceNanos = now;
+        inFlightTarget = target;
+        pendingTarget = NONE;
+        applied.incrementAndGet();
+        seeker.accept(target);
+    }
+
+    // Any thread. Fed with the player's reported position to detect seek completion.
+    public void positionReported(long positionMillis) {
+        long now = System.nanoTime();
+        long previousMillis = lastPositionMillis;
+        long previousNanos = lastPositionNanos;
+        lastPositionMillis = positionMillis;
+        lastPositionNanos = now;
+        long target = inFlightTarget;
+        if (target == NONE || Math.abs(positionMillis - target) > ARRIVAL_TOLERANCE_MILLIS) {
+            return;
+        }
+        // Advancing by about the wall time since the previous report is playback, not a seek.
+        long drift = Math.abs((positionMillis - previousMillis) - (now - previousNanos) / 1_000_000);
+        if (previousNanos != 0 && drift <= ARRIVAL_TOLERANCE_MILLIS) {
+            return;
+        }
+        inFlightTarget = NONE;
+        long latency = now - inFlightRequestedNanos;
+        lastLatencyNanos = latency;
+        totalLatencyNanos.addAndGet(latency);
+        completed.incrementAndGet();
+        Listener current = listener;
+        if (current != null) {
+            current.seekCompleted(target, latency);
+        }
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public void cancel() {
+        debounceTimer.stop();
+        pendingTarget = NONE;
+        inFlightTarget = NONE;
+    }
+
+    public long getRequestedCount() {
+        return requested.get();
+    }
+
+    public long getAppliedCount() {
+        return applied.get();
+    }
+
+    public long getCoalescedCount() {
+        return requested.get() - applied.get();
+    }
+
+    public long getLastLatencyNanos() {
+        return lastLatencyNanos;
+    }
+
+    public long getAverageLatencyNanos() {
+        long count = completed.get();
+        return count == 0 ? 0 : totalLatencyNanos.get() / count;
+    }
+}
@@ -0,0 +1,309 @@
+package org.example.logic;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+// Radix-2 FFT spectrum analyzer that works directly on decoded PCM. Twiddle factors, the
+// bit-reversal table, the window and the band edges are computed once in the constructor,
+// so feeding samples and producing spectrum frames allocates nothing. Band values are in
+// dB relative to a full-scale sine and floored at the threshold, matching what JavaFX's
+// AudioSpectrumListener delivers.
+public class SpectrumAnalyzer {
+    public static final String FFT_SIZE_PROPERTY = "visualization.fftSize";
+    public static final String WINDOW_PROPERTY = "visualization.window";
+    public static final String RATE_PROPERTY = "visualization.rate";
+    public static final String BINNING_PROPERTY = "visualization.binning";
+    public static final int MIN_FFT_SIZE = 512;
+    public static final int MAX_FFT_SIZE = 8_192;
+    public static final int MAX_UPDATES_PER_SECOND = 60;
+    private static final float MIN_FREQUENCY = 30f;
+    private static final int OFFLINE_FRAMES_PER_TASK = 64;
+
+    public enum Window {
+        RECTANGULAR, HANN, HAMMING, BLACKMAN_HARRIS;
+
+        double coefficient(int index, int size) {
+            double phase = 2 * Math.PI * index / (size - 1);
+            switch (this) {
+                case HANN:
+                    return 0.5 - 0.5 * Math.cos(phase);
+                case HAMMING:
+                    return 0.54 - 0.46 * Math.cos(phase);
+                case BLACKMAN_HARRIS:
+                    return 0.35875 - 0.48829 * Math.cos(phase) + 0.14128 * Math.cos(2 * phase)
+                            - 0.01168 * Math.cos(3 * phase);
+                default:
+                    return 1.0;
+            }
+        }
+    }
+
+    private final int fftSize;
+    private final int bandCount;
+    private final float sampleRate;
+    private final int hopSize;
+    private final float thresholdDb;
+    private final Window window;
+    private final boolean logBinning;
+    private final float[] windowCoefficients;
+    private final float[] cosTable;
+    private final float[] sinTable;
+    private final int[] bitReverse;
+    private final int[] bandStart;
+    private final int[] bandEnd;
+    private final float[] real;
+    private final float[] imaginary;
+    private final float[] history;
+    private final float[] magnitudes;
+    private final float normalizationDb;
+    private int historyPosition = 0;
+    private int samplesSinceFrame = 0;
+    private volatile Consumer<float[]> listener;
+    private volatile long framesAnalyzed;
+
+    public SpectrumAnalyzer(int fftSize, Window window, int bandCount, float sampleRate,
+                            int updatesPerSecond, boolean logBinning, float thresholdDb) {
+        if (Integer.bitCount(fftSize) != 1 || fftSize < MIN_FFT_SIZE || fftSize > MAX_FFT_SIZE) {
+            throw new IllegalArgumentException("FFT size must be a power of two between "
+                    + MIN_FFT_SIZE + " and " + MAX_FFT_SIZE + ": " + fftSize);
+        }
+        if (bandCount < 1 || bandCount > fftSize / 2) {
+            throw new IllegalArgumentException("Invalid band count: " + bandCount);
+        }
+        this.fftSize = fftSize;
+        this.window = window;
+        this.bandCount = bandCount;
+        this.sampleRate = sampleRate;
+        this.logBinning = logBinning;
+        this.thresholdDb = thresholdDb;
+        int rate = Math.max(1, Math.min(MAX_UPDATES_PER_SECOND, updatesPerSecond));
+        this.hopSize = Math.max(1, Math.round(sampleRate / rate));
+
+        windowCoefficients = new float[fftSize];
+        double windowSum = 0;
+        for (int i = 0; i < fftSize; i++) {
+            windowCoefficients[i] = (float) window.coefficient(i, fftSize);
+            windowSum += windowCoefficients[i];
+        }
+        // A full-scale sine lands at 0 dB: |X| = amplitude * sum(window) / 2.
+        normalizationDb = (float) (20 * Math.log10(2 / windowSum));
+
+        cosTable = new float[fftSize / 2];
+        sinTable = new float[fftSize / 2];
+        for (int i = 0; i < fftSize / 2; i++) {
+            cosTable[i] = (float) Math.cos(2 * Math.PI * i / fftSize);
+            sinTable[i] = (float) -Math.sin(2 * Math.PI * i / fftSize);
+        }
+        bitReverse = new int[fftSize];
+        int bits = Integer.numberOfTrailingZeros(fftSize);
+        for (int i = 0; i < fftSize; i++) {
+            bitReverse[i] = Integer.reverse(i) >>> (32 - bits);
+        }
+
+        bandStart = new int[bandCount];
+        bandEnd = new int[bandCount];
+        computeBandEdges();
+
+        real = new float[fftSize];
+        imaginary = new float[fftSize];
+        history = new float[fftSize];
+        magnitudes = new float[bandCount];
+    }
+
+    public static SpectrumAnalyzer fromSystemProperties(float sampleRate, int bandCount, float thresholdDb) {
+        int fftSize = Integer.getInteger(FFT_SIZE_PROPERTY, 2_048);
+        fftSize = Math.max(MIN_FFT_SIZE, Math.min(MAX_FFT_SIZE, Integer.highestOneBit(Math.max(1, fftSize))));
+        return new SpectrumAnalyzer(fftSize, windowFromSystemProperty(), bandCount, sampleRate,
+                updatesPerSecondFromSystemProperty(),
+                !"linear".equalsIgnoreCase(System.getProperty(BINNING_PROPERTY)), thresholdDb);
+    }
+
+    public static Window windowFromSystemProperty() {
+        String value = System.getProperty(WINDOW_PROPERTY, "hann");
+        for (Window candidate : Window.values()) {
+            if (candidate.name().replace("_", "").equalsIgnoreCase(value.replace("_", "").replace("-", ""))) {
+                return candidate;
+            }
+        }
+        return Window.HANN;
+    }
+
+    public static int updatesPerSecondFromSystemProperty() {
+        int rate = Integer.getInteger(RATE_PROPERTY, MAX_UPDATES_PER_SECOND);
+        return Math.max(1, Math.min(MAX_UPDATES_PER_SECOND, rate));
+    }
+
+    // Bands either split the spectrum evenly or follow a logarithmic frequency scale. Low
+    // log bands narrower than one bin are widened so every band covers at least one bin.
+    private void computeBandEdges() {
+        int bins = fftSize / 2;
+        float binWidth = sampleRate / fftSize;
+        double minBin = Math.max(1, MIN_FREQUENCY / binWidth);
+        double ratio = bins / minBin;
+        int previousEnd = 1;
+        for (int band = 0; band < bandCount; band++) {
+            double upper = logBinning
+                    ? minBin * Math.pow(ratio, (band + 1) / (double) bandCount)
+                    : 1 + (bins - 1) * (band + 1) / (double) bandCount;
+            int start = Math.min(previousEnd, bins - 1);
+            int end = Math.max(start + 1, Math.min(bins, (int) Math.round(upper)));
+            bandStart[band] = start;
+            bandEnd[band] = end;
+            previousEnd = end;
+        }
+    }
+
+    public void setListener(Consumer<float[]> listener) {
+        this.listener = listener;
+    }
+
+    // Accepts interleaved samples from the playback thread and emits a spectrum frame every
+    // hop. The array handed to the listener is reused for the next frame.
+    public void feed(float[] samples, int count, int channels) {
+        Consumer<float[]> target = listener;
+        for (int i = 0; i + channels <= count; i += channels) {
+            float mono = samples[i];
+            for (int channel = 1; channel < channels; channel++) {
+                mono += samples[i + channel];
+            }
+            history[historyPosition] = mono / channels;
+            historyPosition = (historyPosition + 1) & (fftSize - 1);
+            if (++samplesSinceFrame >= hopSize) {
+                samplesSinceFrame = 0;
+                if (target != null) {
+                    for (int j = 0; j < fftSize; j++) {
+                        real[j] = history[(historyPosition + j) & (fftSize - 1)] * windowCoefficients[j];
+                    }
+                    transformAndBin(magnitudes);
+                    target.accept(magnitudes);
+                }
+            }
+        }
+    }
+
+    public void reset() {
+        Arrays.fill(history, 0f);
+        historyPosition = 0;
+        samplesSinceFrame = 0;
+    }
+
+    // Analyzes fftSize mono samples starting at offset into bandCount dB values.
+    public void analyze(float[] mono, int offset, float[] target) {
+        for (int i = 0; i < fftSize; i++) {
+            real[i] = mono[offset + i] * windowCoefficients[i];
+        }
+        transformAndBin(target);
+    }
+
+    private void transformAndBin(float[] target) {
+        Arrays.fill(imaginary, 0f);
+        transform();
+        for (int band = 0; band < bandCount; band++) {
+            float peak = 0f;
+            for (int bin = bandStart[band]; bin < bandEnd[band]; bin++) {
+                float power = real[bin] * real[bin] + imaginary[bin] * imaginary[bin];
+                if (power > peak) {
+                    peak = power;
+                }
+            }
+            float decibels = peak > 0f ? (float) (10 * Math.log10(peak)) + normalizationDb : thresholdDb;
+            target[band] = Math.max(thresholdDb, decibels);
+        }
+        framesAnalyzed++;
+    }
+
+    // In-place iterative Cooley-Tukey on real/imaginary.
+    private void transform() {
+        for (int i = 0; i < fftSize; i++) {
+            int j = bitReverse[i];
+            if (j > i) {
+                float swap = real[i];
+                real[i] = real[j];
+                real[j] = swap;
+                swap = imaginary[i];
+                imaginary[i] = imaginary[j];
+                imaginary[j] = swap;
+            }
+        }
+        for (int size = 2; size <= fftSize; size <<= 1) {
+            int half = size >> 1;
+            int step = fftSize / size;
+            for (int start = 0; start < fftSize; start += size) {
+                for (int k = 0; k < half; k++) {
+                    float cos = cosTable[k * step];
+                    float sin = sinTable[k * step];
+                    int even = start + k;
+                    int odd = even + half;
+                    float oddReal = real[odd] * cos - imaginary[odd] * sin;
+                    float oddImaginary = real[odd] * sin + imaginary[odd] * cos;
+                    real[odd] = real[even] - oddReal;
+                    imaginary[odd] = imaginary[even] - oddImaginary;
+                    real[even] += oddReal;
+                    imaginary[even] += oddImaginary;
+                }
+            }
+        }
+    }
+
+    // Offline batch: splits the frames of a whole mono signal across the common fork/join
+    // pool. Each leaf task gets its own analyzer, so workspaces are never shared.
+    public float[][] analyzeAll(float[] mono, int hop) {
+        int frames = mono.length < fftSize ? 0 : (mono.length - fftSize) / hop + 1;
+        float[][] result = new float[frames][bandCount];
+        ForkJoinPool.commonPool().invoke(new BatchTask(mono, hop, result, 0, frames));
+        return result;
+    }
+
+    private class BatchTask extends RecursiveAction {
+        private final float[] mono;
+        private final int hop;
+        private final float[][] result;
+        private final int from;
+        private final int to;
+
+        BatchTask(float[] mono, int hop, float[][] result, int from, int to) {
+            this.mono = mono;
+            this.hop = hop;
+            this.result = result;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= OFFLINE_FRAMES_PER_TASK) {
+                SpectrumAnalyzer worker = new SpectrumAnalyzer(fftSize, window, bandCount, sampleRate,
+                        MAX_UPDATES_PER_SECOND, logBinning, thresholdDb);
+                for (int frame = from; frame < to; frame++) {
+                    worker.analyze(mono, frame * hop, result[frame]);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new BatchTask(mono, hop, result, from, middle),
+                    new BatchTask(mono, hop, result, middle, to));
+        }
+    }
+
+    public int getFftSize() {
+        return fftSize;
+    }
+
+    public int getBandCount() {
+        return bandCount;
+    }
+
+    public int getHopSize() {
+        return hopSize;
+    }
+
+    public Window getWindow() {
+        return window;
+    }
+
+    public long getFramesAnalyzed() {
+        return framesAnalyzed;
+    }
+}
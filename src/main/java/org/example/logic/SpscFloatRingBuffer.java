@@ -0,0 +1,150 @@
+package org.example.logic;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+// Single-producer/single-consumer ring of float samples. Head and tail live on separate
+// cache lines (padding via the class hierarchy, as @Contended is not available without
+// JVM flags), each side caches the other's index, and publication uses release/acquire
+// instead of locks.
+abstract class SpscPadHead {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+}
+
+abstract class SpscHead extends SpscPadHead {
+    volatile long head;
+    long cachedTail;
+}
+
+abstract class SpscPadTail extends SpscHead {
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+}
+
+abstract class SpscTail extends SpscPadTail {
+    volatile long tail;
+    long cachedHead;
+}
+
+abstract class SpscPadEnd extends SpscTail {
+    long p20, p21, p22, p23, p24, p25, p26, p27;
+}
+
+public final class SpscFloatRingBuffer extends SpscPadEnd {
+    private static final VarHandle HEAD;
+    private static final VarHandle TAIL;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            HEAD = lookup.findVarHandle(SpscHead.class, "head", long.class);
+            TAIL = lookup.findVarHandle(SpscTail.class, "tail", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final float[] samples;
+    private final int mask;
+    private final int frameSize;
+    private volatile boolean finished = false;
+    // Producer-written count of offers cut short by a full ring. That is normal backpressure
+    // from a consumer paced by the audio line, not a fault.
+    private volatile long fullOffers;
+
+    public SpscFloatRingBuffer(int minimumCapacity) {
+        this(minimumCapacity, 1);
+    }
+
+    // Transfers are rounded down to whole frames of frameSize samples (e.g. the channel count).
+    public SpscFloatRingBuffer(int minimumCapacity, int frameSize) {
+        int capacity = Integer.highestOneBit(Math.max(2, minimumCapacity - 1)) << 1;
+        samples = new float[capacity];
+        mask = capacity - 1;
+        this.frameSize = frameSize;
+    }
+
+    // Producer side. Returns how many samples were accepted; fewer than length means full.
+    public int offer(float[] source, int offset, int length) {
+        long currentHead = head;
+        long free = samples.length - (currentHead - cachedTail);
+        if (free < length) {
+            cachedTail = (long) TAIL.getAcquire(this);
+            free = samples.length - (currentHead - cachedTail);
+        }
+        int count = (int) Math.min(free, length);
+        count -= count % frameSize;
+        if (count < length) {
+            fullOffers++;
+        }
+        if (count == 0) {
+            return 0;
+        }
+        int start = (int) (currentHead & mask);
+        int firstPart = Math.min(count, samples.length - start);
+        System.arraycopy(source, offset, samples, start, firstPart);
+        System.arraycopy(source, offset + firstPart, samples, 0, count - firstPart);
+        HEAD.setRelease(this, currentHead + count);
+        return count;
+    }
+
+    // Consumer side. Returns how many samples were copied. A short poll only means the
+    // consumer got ahead; whether the output actually starved is up to the consumer to judge.
+    public int poll(float[] target, int offset, int length) {
+        long currentTail = tail;
+        long available = cachedHead - currentTail;
+        if (available < length) {
+            cachedHead = (long) HEAD.getAcquire(this);
+            available = cachedHead - currentTail;
+        }
+        int count = (int) Math.min(available, length);
+        count -= count % frameSize;
+        if (count == 0) {
+            return 0;
+        }
+        int start = (int) (currentTail & mask);
+        int firstPart = Math.min(count, samples.length - start);
+        System.arraycopy(samples, start, target, offset, firstPart);
+        System.arraycopy(samples, 0, target, offset + firstPart, count - firstPart);
+        TAIL.setRelease(this, currentTail + count);
+        return count;
+    }
+
+    // Consumer side: discards everything the producer has published so far.
+    public void clear() {
+        cachedHead = (long) HEAD.getAcquire(this);
+        TAIL.setRelease(this, cachedHead);
+    }
+
+    public void finish() {
+        finished = true;
+    }
+
+    public void restart() {
+        finished = false;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public boolean isDrained() {
+        return finished && head == tail;
+    }
+
+    public int getCapacity() {
+        return samples.length;
+    }
+
+    public int getFillLevel() {
+        return (int) (head - tail);
+    }
+
+    // Time the newest buffered sample will wait before the consumer reaches it.
+    public long getLatencyNanos(double samplesPerSecond) {
+        return (long) (getFillLevel() / samplesPerSecond * 1_000_000_000L);
+    }
+
+    public long getFullOfferCount() {
+        return fullOffers;
+    }
+}
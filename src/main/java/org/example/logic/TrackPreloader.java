@@ -0,0 +1,125 @@
+package org.example.logic;
+
+import javafx.scene.media.MediaPlayer;
+
+import java.io.File;
+
+// Holds a prerolled MediaPlayer for the upcoming playlist entry so the end-of-media
+// transition only has to swap players. All mutators run on the FX thread; the Media itself
+// is built on a media loader thread, and volume and mute are left to the swap.
+public class TrackPreloader {
+    public static final String GAPLESS_PROPERTY = "playback.gapless";
+    public static final String PRELOAD_SECONDS_PROPERTY = "playback.preloadSeconds";
+    private static final double DEFAULT_PRELOAD_SECONDS = 5.0;
+
+    private final boolean enabled;
+    private final double preloadMillis;
+    private MediaPlayer player;
+    private long requests;
+    private volatile String path;
+    private volatile boolean ready = false;
+    private long transitionStartNanos;
+    private volatile long transitions;
+    private volatile long lastTransitionNanos;
+    private volatile long totalTransitionNanos;
+
+    public TrackPreloader() {
+        this(Boolean.getBoolean(GAPLESS_PROPERTY), readPreloadSeconds());
+    }
+
+    public TrackPreloader(boolean enabled, double preloadSeconds) {
+        this.enabled = enabled;
+        this.preloadMillis = preloadSeconds * 1000;
+    }
+
+    private static double readPreloadSeconds() {
+        try {
+            return Double.parseDouble(System.getProperty(PRELOAD_SECONDS_PROPERTY,
+                    String.valueOf(DEFAULT_PRELOAD_SECONDS)));
+        } catch (NumberFormatException e) {
+            return DEFAULT_PRELOAD_SECONDS;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean shouldPreload(String nextPath, double currentMillis, double totalMillis) {
+        return enabled && nextPath != null && !nextPath.equals(path)
+                && totalMillis - currentMillis <= preloadMillis;
+    }
+
+    public void prepare(String filePath, MediaLoader loader) {
+        discard();
+        path = filePath;
+        long request = requests;
+        loader.preload(new File(filePath), media -> {
+            // A discard() or a newer prepare() since then makes this one stale.
+            if (request != requests) {
+                return;
+            }
+            try {
+                MediaPlayer preloaded = new MediaPlayer(media);
+                preloaded.setOnReady(() -> {
+                    if (player == preloaded) {
+                        ready = true;
+                    }
+                });
+                player = preloaded;
+            } catch (Exception e) {
+                System.err.println("Failed to preload " + filePath + ": " + e.getMessage());
+            }
+        });
+    }
+
+    public boolean isReadyFor(String filePath) {
+        return ready && filePath != null && filePath.equals(path);
+    }
+
+    public MediaPlayer take(String filePath) {
+        if (!isReadyFor(filePath)) {
+            return null;
+        }
+        MediaPlayer taken = player;
+        requests++;
+        player = null;
+        path = null;
+        ready = false;
+        return taken;
+    }
+
+    public void discard() {
+        requests++;
+        if (player != null) {
+            player.dispose();
+            player = null;
+        }
+        path = null;
+        ready = false;
+    }
+
+    public void markTransitionStart() {
+        transitionStartNanos = System.nanoTime();
+    }
+
+    public void markTransitionEnd() {
+        long elapsed = System.nanoTime() - transitionStartNanos;
+        lastTransitionNanos = elapsed;
+        totalTransitionNanos += elapsed;
+        transitions++;
+    }
+
+    public long getTransitionCount() {
+        return transitions;
+    }
+
+    public long getLastTransitionNanos() {
+        return lastTransitionNanos;
+    }
+
+    public long getAverageTransitionNanos() {
+        long count = transitions;
+        return count == 0 ? 0 : totalTransitionNanos / count;
+    }
+}
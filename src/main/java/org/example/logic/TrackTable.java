@@ -0,0 +1,554 @@
+package org.example.logic;
+
+import java.io.File;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+// Column store over every track the playlist has held this session, so views can be sorted
+// and filtered without probing files. Each row keeps its path plus primitive columns
+// (duration, size, mtime, time added, play count, last played) and dictionary ids for
+// artist, album, folder and container; play statistics are seeded from the metadata cache's
+// play log, so they survive restarts. Until clear(), rows are never reused for another
+// path: removal only clears the live flag and re-adding the path revives it, so row ids in
+// a view stay valid. Sorting packs each key and row id into one long and sorts those in parallel;
+// filtering runs the bound predicate over all rows as a parallel stream. Columns are
+// written on the EDT under the write lock; queries run on one "track-query" thread under
+// the read lock, and a query is dropped if a newer one was submitted meanwhile.
+public class TrackTable {
+    private static final int INITIAL_CAPACITY = 1_024;
+    private static final long UNKNOWN = -1;
+
+    public enum Column {
+        DURATION, SIZE, MODIFIED, ADDED, LAST_PLAYED, PLAY_COUNT, ARTIST, ALBUM, FOLDER, CONTAINER
+    }
+
+    // Compiled against the table when a query runs, so it can precompute per-dictionary
+    // lookups once instead of comparing strings per row.
+    public interface Filter {
+        IntPredicate bind(TrackTable table);
+
+        default Filter and(Filter other) {
+            return table -> bind(table).and(other.bind(table));
+        }
+
+        static Filter all() {
+            return table -> row -> true;
+        }
+
+        static Filter unplayed() {
+            return table -> {
+                int[] playCounts = table.playCounts;
+                return row -> playCounts[row] == 0;
+            };
+        }
+
+        // Tracks whose duration is unknown never match.
+        static Filter longerThan(long millis) {
+            return longerThan(millis, false);
+        }
+
+        // Duration is only known once a track has been probed, i.e. played once; smart views
+        // can keep the unprobed ones rather than silently losing them.
+        static Filter longerThan(long millis, boolean includeUnknown) {
+            return table -> {
+                long[] durations = table.durations;
+                return includeUnknown
+                        ? row -> durations[row] > millis || durations[row] == UNKNOWN
+                        : row -> durations[row] > millis;
+            };
+        }
+
+        // The folder itself and everything below it.
+        static Filter inFolder(String folder) {
+            return table -> {
+                boolean[] matching = table.folders.matching(name -> name.equals(folder)
+                        || name.startsWith(folder) && isSeparator(name.charAt(folder.length())));
+                int[] folderIds = table.folderIds;
+                return row -> matching[folderIds[row]];
+            };
+        }
+
+        static Filter artist(String artist) {
+            return table -> {
+                boolean[] matching = table.artists.matching(name -> name.equalsIgnoreCase(artist));
+                int[] artistIds = table.artistIds;
+                return row -> matching[artistIds[row]];
+            };
+        }
+    }
+
+    // The rows of one query result in order. Paths are read from the table's column, so
+    // nothing is copied; a row removed since the query still reports its old path.
+    public static final class View extends AbstractList<String> implements RandomAccess {
+        private final String[] paths;
+        private final int[] rows;
+        private final long generation;
+        private final long elapsedNanos;
+
+        View(String[] paths, int[] rows, long generation, long elapsedNanos) {
+            this.paths = paths;
+            this.rows = rows;
+            this.generation = generation;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        @Override
+        public String get(int index) {
+            return paths[rows[index]];
+        }
+
+        @Override
+        public int size() {
+            return rows.length;
+        }
+
+        public long getGeneration() {
+            return generation;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+    }
+
+    // Id 0 is the empty string, used for unknown values, so those sort first.
+    private static final class Dictionary {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private int[] ranks;
+
+        Dictionary() {
+            encode("");
+        }
+
+        int encode(String value) {
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = values.size();
+                ids.put(value, id);
+                values.add(value);
+                ranks = null;
+            }
+            return id;
+        }
+
+        // Case-insensitive sort position of every id; rebuilt only after new values arrive.
+        // Callers hold the read lock, so two queries may race to build it; both get the same.
+        int[] ranks() {
+            int[] current = ranks;
+            if (current == null) {
+                Integer[] order = new Integer[values.size()];
+                Arrays.setAll(order, i -> i);
+                Arrays.sort(order, (a, b) -> values.get(a).compareToIgnoreCase(values.get(b)));
+                current = new int[order.length];
+                for (int rank = 0; rank < order.length; rank++) {
+                    current[order[rank]] = rank;
+                }
+                ranks = current;
+            }
+            return current;
+        }
+
+        boolean[] matching(Predicate<String> predicate) {
+            boolean[] matching = new boolean[values.size()];
+            for (int id = 0; id < matching.length; id++) {
+                matching[id] = predicate.test(values.get(id));
+            }
+            return matching;
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+
+    private final MetadataCache metadataCache;
+    private final ExecutorService executor;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> rowByPath = new HashMap<>();
+    private final Dictionary artists = new Dictionary();
+    private final Dictionary albums = new Dictionary();
+    private final Dictionary folders = new Dictionary();
+    private final Dictionary containers = new Dictionary();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong totalQueryNanos = new AtomicLong();
+    private String[] paths = new String[INITIAL_CAPACITY];
+    private boolean[] live = new boolean[INITIAL_CAPACITY];
+    private long[] durations = new long[INITIAL_CAPACITY];
+    private long[] sizes = new long[INITIAL_CAPACITY];
+    private long[] modified = new long[INITIAL_CAPACITY];
+    private long[] added = new long[INITIAL_CAPACITY];
+    private long[] lastPlayed = new long[INITIAL_CAPACITY];
+    private int[] playCounts = new int[INITIAL_CAPACITY];
+    private int[] artistIds = new int[INITIAL_CAPACITY];
+    private int[] albumIds = new int[INITIAL_CAPACITY];
+    private int[] folderIds = new int[INITIAL_CAPACITY];
+    private int[] containerIds = new int[INITIAL_CAPACITY];
+    private int rowCount;
+    private volatile int liveCount;
+    private volatile long lastQueryNanos;
+
+    public TrackTable(MetadataCache metadataCache) {
+        this.metadataCache = metadataCache;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "track-query");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void addAll(Collection<String> addedPaths) {
+        long now = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            for (String path : addedPaths) {
+                Integer existing = rowByPath.get(path);
+                int row;
+                if (existing == null) {
+                    row = rowCount++;
+                    if (row == paths.length) {
+                        grow(row * 2);
+                    }
+                    paths[row] = path;
+                    folderIds[row] = folders.encode(folderOf(path));
+                    rowByPath.put(path, row);
+                } else if (!live[existing]) {
+                    row = existing;
+                } else {
+                    continue;
+                }
+                live[row] = true;
+                added[row] = now;
+                liveCount++;
+                fill(row, path);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeAll(Collection<String> removedPaths) {
+        lock.writeLock().lock();
+        try {
+            for (String path : removedPaths) {
+                Integer row = rowByPath.get(path);
+                if (row != null && live[row]) {
+                    live[row] = false;
+                    liveCount--;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Re-reads the metadata columns, e.g. after the file was probed or changed on disk.
+    public void update(String path) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rowByPath.get(path);
+            if (row != null) {
+                fill(row, path);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Play statistics carry over to the new path.
+    public void rename(String from, String to) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rowByPath.get(from);
+            if (row == null || rowByPath.containsKey(to)) {
+                return;
+            }
+            rowByPath.remove(from);
+            rowByPath.put(to, row);
+            paths[row] = to;
+            folderIds[row] = folders.encode(folderOf(to));
+            fill(row, to);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Mirrors MetadataCache.recordPlay() on the row without re-reading the cache.
+    public void played(String path, long timeMillis) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rowByPath.get(path);
+            if (row != null) {
+                playCounts[row]++;
+                lastPlayed[row] = timeMillis;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Drops the rows but keeps the dictionaries; their values are likely to come back. Views
+    // taken before keep the old path column.
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            rowByPath.clear();
+            Arrays.fill(live, 0, rowCount, false);
+            paths = new String[paths.length];
+            rowCount = 0;
+            liveCount = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Runs select() on the query thread and hands the view to the callback there, unless a
+    // newer query was submitted in the meantime. Returns the query's generation.
+    public long query(Filter filter, Column sortBy, boolean descending, Consumer<View> callback) {
+        long requested = generation.incrementAndGet();
+        executor.execute(() -> {
+            if (!isCurrent(requested)) {
+                return;
+            }
+            View view = select(filter, sortBy, descending, requested);
+            if (isCurrent(requested)) {
+                callback.accept(view);
+            }
+        });
+        return requested;
+    }
+
+    // Drops any query still waiting.
+    public void cancel() {
+        generation.incrementAndGet();
+    }
+
+    public boolean isCurrent(long requested) {
+        return generation.get() == requested;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Live rows matching the filter, ordered by the column (ties and a null column keep the
+    // order rows were added in). Runs on the calling thread, using the common pool.
+    public View select(Filter filter, Column sortBy, boolean descending) {
+        return select(filter, sortBy, descending, generation.get());
+    }
+
+    private View select(Filter filter, Column sortBy, boolean descending, long requested) {
+        long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            boolean[] liveRows = live;
+            IntPredicate predicate = filter.bind(this);
+            int[] rows = IntStream.range(0, rowCount).parallel()
+                    .filter(row -> liveRows[row] && predicate.test(row))
+                    .toArray();
+            if (sortBy != null) {
+                sort(rows, sortBy, descending);
+            }
+            long elapsed = System.nanoTime() - start;
+            lastQueryNanos = elapsed;
+            totalQueryNanos.addAndGet(elapsed);
+            queries.incrementAndGet();
+            return new View(paths, rows, requested, elapsed);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Sorts row ids in place by the column. When the key range and the row ids fit in 63 bits
+    // together, which covers any realistic library, each pair is packed into one long so a
+    // single primitive parallel sort does the work; otherwise rows are boxed and compared.
+    private void sort(int[] rows, Column column, boolean descending) {
+        if (rows.length < 2) {
+            return;
+        }
+        long[] keys = keysFor(column);
+        int[] ranks = ranksFor(column);
+        int[] ids = idsFor(column);
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int row : rows) {
+            long key = key(row, keys, ranks, ids);
+            min = Math.min(min, key);
+            max = Math.max(max, key);
+        }
+        int rowBits = 32 - Integer.numberOfLeadingZeros(rowCount);
+        long range = max - min;
+        if (range >= 0 && range >>> (63 - rowBits) == 0) {
+            long low = min;
+            long high = max;
+            long[] packed = new long[rows.length];
+            Arrays.parallelSetAll(packed, i -> {
+                long key = key(rows[i], keys, ranks, ids);
+                return ((descending ? high - key : key - low) << rowBits) | rows[i];
+            });
+            Arrays.parallelSort(packed);
+            long rowMask = (1L << rowBits) - 1;
+            Arrays.parallelSetAll(rows, i -> (int) (packed[i] & rowMask));
+            return;
+        }
+        Integer[] boxed = new Integer[rows.length];
+        Arrays.setAll(boxed, i -> rows[i]);
+        Arrays.parallelSort(boxed, (a, b) -> {
+            int order = Long.compare(key(a, keys, ranks, ids), key(b, keys, ranks, ids));
+            return order != 0 ? (descending ? -order : order) : Integer.compare(a, b);
+        });
+        Arrays.setAll(rows, i -> boxed[i]);
+    }
+
+    private static long key(int row, long[] keys, int[] ranks, int[] ids) {
+        return keys != null ? keys[row] : ranks != null ? ranks[ids[row]] : ids[row];
+    }
+
+    private long[] keysFor(Column column) {
+        switch (column) {
+            case DURATION:
+                return durations;
+            case SIZE:
+                return sizes;
+            case MODIFIED:
+                return modified;
+            case ADDED:
+                return added;
+            case LAST_PLAYED:
+                return lastPlayed;
+            default:
+                return null;
+        }
+    }
+
+    private int[] ranksFor(Column column) {
+        switch (column) {
+            case ARTIST:
+                return artists.ranks();
+            case ALBUM:
+                return albums.ranks();
+            case FOLDER:
+                return folders.ranks();
+            case CONTAINER:
+                return containers.ranks();
+            default:
+                return null;
+        }
+    }
+
+    private int[] idsFor(Column column) {
+        switch (column) {
+            case PLAY_COUNT:
+                return playCounts;
+            case ARTIST:
+                return artistIds;
+            case ALBUM:
+                return albumIds;
+            case FOLDER:
+                return folderIds;
+            case CONTAINER:
+                return containerIds;
+            default:
+                return null;
+        }
+    }
+
+    private void fill(int row, String path) {
+        MetadataCache.Plays plays = metadataCache.peekPlays(path);
+        playCounts[row] = plays == null ? 0 : plays.getCount();
+        lastPlayed[row] = plays == null ? 0 : plays.getLastPlayedMillis();
+        MetadataCache.Entry entry = metadataCache.peek(path);
+        if (entry == null) {
+            durations[row] = UNKNOWN;
+            sizes[row] = UNKNOWN;
+            modified[row] = UNKNOWN;
+            artistIds[row] = 0;
+            albumIds[row] = 0;
+            containerIds[row] = containers.encode(extensionOf(path));
+            return;
+        }
+        durations[row] = entry.getDurationMillis();
+        sizes[row] = entry.getSize();
+        modified[row] = entry.getLastModified();
+        artistIds[row] = artists.encode(entry.getTags().getOrDefault("artist", ""));
+        albumIds[row] = albums.encode(entry.getTags().getOrDefault("album", ""));
+        containerIds[row] = containers.encode(entry.getContainer());
+    }
+
+    private void grow(int capacity) {
+        paths = Arrays.copyOf(paths, capacity);
+        live = Arrays.copyOf(live, capacity);
+        durations = Arrays.copyOf(durations, capacity);
+        sizes = Arrays.copyOf(sizes, capacity);
+        modified = Arrays.copyOf(modified, capacity);
+        added = Arrays.copyOf(added, capacity);
+        lastPlayed = Arrays.copyOf(lastPlayed, capacity);
+        playCounts = Arrays.copyOf(playCounts, capacity);
+        artistIds = Arrays.copyOf(artistIds, capacity);
+        albumIds = Arrays.copyOf(albumIds, capacity);
+        folderIds = Arrays.copyOf(folderIds, capacity);
+        containerIds = Arrays.copyOf(containerIds, capacity);
+    }
+
+    public static String folderOf(String path) {
+        int separator = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'));
+        return separator == -1 ? "" : path.substring(0, separator);
+    }
+
+    private static String extensionOf(String path) {
+        String name = new File(path).getName();
+        int dot = name.lastIndexOf('.');
+        return dot == -1 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == '/' || c == '\\';
+    }
+
+    public int getRowCount() {
+        return liveCount;
+    }
+
+    // Column arrays at their current capacity plus the path index and dictionaries. Paths
+    // themselves are shared with the playlist.
+    public long getMemoryBytes() {
+        lock.readLock().lock();
+        try {
+            long perRow = 8 + 1 + 8 * 5 + 4 * 5;
+            int dictionaryValues = artists.size() + albums.size() + folders.size() + containers.size();
+            return paths.length * perRow + rowByPath.size() * 48L + dictionaryValues * 96L;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getQueryCount() {
+        return queries.get();
+    }
+
+    public long getLastQueryNanos() {
+        return lastQueryNanos;
+    }
+
+    public long getAverageQueryNanos() {
+        long count = queries.get();
+        return count == 0 ? 0 : totalQueryNanos.get() / count;
+    }
+}
@@ -0,0 +1,131 @@
+package org.example.logic;
+
+import javafx.util.Duration;
+import org.example.user_interface.UIComponents;
+
+import javax.swing.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Collects playback state from any thread and applies only the latest values on the EDT,
+// at most once per frame.
+public class UiDispatcher {
+    private static final int FRAME_MILLIS = 16;
+    private static final int POSITION = 1;
+    private static final int DURATION = 1 << 1;
+    private static final int STATUS = 1 << 2;
+    private static final int NOW_PLAYING = 1 << 3;
+    private static final long UNKNOWN = -1;
+
+    private final UIComponents ui;
+    private final Timer flushTimer;
+    private final AtomicInteger dirty = new AtomicInteger();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+    private volatile long positionMillis;
+    private volatile long durationMillis = UNKNOWN;
+    private volatile String status;
+    private volatile boolean resetPlayButton;
+    private volatile String nowPlaying;
+
+    public UiDispatcher(UIComponents ui) {
+        this.ui = ui;
+        this.flushTimer = new Timer(FRAME_MILLIS, e -> flush());
+        this.flushTimer.setRepeats(false);
+    }
+
+    public void submitPosition(Duration position) {
+        submitPosition(toMillis(position));
+    }
+
+    public void submitPosition(long millis) {
+        positionMillis = millis;
+        markDirty(POSITION);
+    }
+
+    public void submitDuration(Duration duration) {
+        submitDuration(toMillis(duration));
+    }
+
+    public void submitDuration(long millis) {
+        durationMillis = millis;
+        markDirty(DURATION);
+    }
+
+    public void submitStatus(String text) {
+        status = text;
+        resetPlayButton = false;
+        markDirty(STATUS);
+    }
+
+    public void submitIdleStatus(String text) {
+        status = text;
+        resetPlayButton = true;
+        markDirty(STATUS);
+    }
+
+    public void submitNowPlaying(String text) {
+        nowPlaying = text;
+        markDirty(NOW_PLAYING);
+    }
+
+    private void markDirty(int flag) {
+        submitted.incrementAndGet();
+        int previous;
+        do {
+            previous = dirty.get();
+        } while (!dirty.compareAndSet(previous, previous | flag));
+
+        if (previous == 0) {
+            flushTimer.start();
+        } else {
+            coalesced.incrementAndGet();
+        }
+    }
+
+    private void flush() {
+        int flags = dirty.getAndSet(0);
+        if (flags == 0) {
+            return;
+        }
+        if ((flags & (POSITION | DURATION)) != 0) {
+            long current = positionMillis;
+            long total = durationMillis;
+            // The thumb stays under the user's cursor while it is being dragged.
+            if (!ui.getProgressSlider().getValueIsAdjusting()) {
+                ui.getProgressSlider().setTimeline(current, total);
+            }
+            ui.getTimeLabel().setTime(current, total);
+        }
+        if ((flags & STATUS) != 0) {
+            ui.setStatus(status);
+            if (resetPlayButton) {
+                ui.getPlayPauseButton().setText("Play");
+            }
+        }
+        if ((flags & NOW_PLAYING) != 0) {
+            ui.setNowPlaying(nowPlaying);
+        }
+        applied.incrementAndGet();
+    }
+
+    private static long toMillis(Duration duration) {
+        if (duration == null || duration.isUnknown() || duration.isIndefinite()) {
+            return UNKNOWN;
+        }
+        return (long) duration.toMillis();
+    }
+
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    public long getAppliedCount() {
+        return applied.get();
+    }
+}
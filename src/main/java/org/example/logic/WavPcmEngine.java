@@ -0,0 +1,501 @@
+package org.example.logic;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.BooleanControl;
+import javax.sound.sampled.FloatControl;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+
+// Plays PCM WAV files from a memory-mapped file. A decoder thread converts PCM chunks to
+// float samples and pushes them through an SPSC ring buffer; the output thread pulls from
+// the ring, converts back to the line format and writes to a SourceDataLine. Both loops
+// only touch preallocated arrays, so steady-state playback allocates nothing.
+public class WavPcmEngine implements PlaybackEngine {
+    private static final int LINE_BUFFER_MILLIS = 250;
+    private static final int RING_BUFFER_MILLIS = 500;
+    private static final int POSITION_REPORT_MILLIS = 100;
+    private static final long IDLE_PARK_NANOS = 1_000_000L;
+    private static final int FORMAT_PCM = 1;
+    private static final int FORMAT_EXTENSIBLE = 0xFFFE;
+    private static final int EXTENSIBLE_FORMAT_BYTES = 40;
+    // KSDATAFORMAT_SUBTYPE_PCM after its leading format tag, as read little-endian.
+    private static final short PCM_GUID_DATA2 = 0x0000;
+    private static final int PCM_GUID_DATA3_4 = 0x00100000;
+    private static final long PCM_GUID_TAIL = 0x719B3800AA000080L;
+
+    private final MappedByteBuffer data;
+    private final int dataOffset;
+    private final long dataLength;
+    private final AudioFormat format;
+    private final int blockAlign;
+    private final int channels;
+    private final int bytesPerSample;
+    private final SourceDataLine line;
+    private final SpscFloatRingBuffer ring;
+    private final byte[] decodeBytes;
+    private final float[] decodeSamples;
+    private final float[] outputSamples;
+    private final byte[] outputBytes;
+    private final Object lock = new Object();
+    private final AtomicLong pendingSeekFrame = new AtomicLong(-1);
+    private volatile boolean playing = false;
+    private volatile boolean closed = false;
+    private volatile boolean endReached = false;
+    private volatile long seekEpoch = 0;
+    private volatile long ackedEpoch = 0;
+    private volatile long seekTargetFrame = 0;
+    private volatile long baseFrame = 0;
+    private volatile long lineFramesAtSeek = 0;
+    private volatile long lineUnderruns = 0;
+    private volatile Runnable onEndOfMedia;
+    private volatile LongConsumer positionListener;
+    private volatile SpectrumAnalyzer spectrumAnalyzer;
+    private long readOffset = 0;
+    private boolean primed = false;
+    private long lastReportNanos = 0;
+
+    public WavPcmEngine(File file) throws IOException, LineUnavailableException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("WAV files over 2 GB are not supported");
+            }
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        data.order(ByteOrder.LITTLE_ENDIAN);
+        if (data.limit() < 12 || data.getInt(0) != 0x46464952 || data.getInt(8) != 0x45564157) {
+            throw new IOException("Not a RIFF/WAVE file: " + file.getName());
+        }
+
+        AudioFormat parsedFormat = null;
+        int parsedDataOffset = -1;
+        long parsedDataLength = 0;
+        int position = 12;
+        while (position + 8 <= data.limit()) {
+            int chunkId = data.getInt(position);
+            long chunkSize = data.getInt(position + 4) & 0xFFFFFFFFL;
+            int body = position + 8;
+            if (chunkId == 0x20746D66) {
+                parsedFormat = parseFormat(data, body, chunkSize);
+            } else if (chunkId == 0x61746164) {
+                parsedDataOffset = body;
+                parsedDataLength = Math.min(chunkSize, data.limit() - body);
+                break;
+            }
+            position = (int) Math.min(Integer.MAX_VALUE, body + chunkSize + (chunkSize & 1));
+        }
+        if (parsedFormat == null || parsedDataOffset == -1) {
+            throw new IOException("Missing fmt or data chunk: " + file.getName());
+        }
+
+        format = parsedFormat;
+        blockAlign = format.getFrameSize();
+        channels = format.getChannels();
+        bytesPerSample = blockAlign / channels;
+        dataOffset = parsedDataOffset;
+        dataLength = parsedDataLength - parsedDataLength % blockAlign;
+
+        int bufferBytes = framesFor(LINE_BUFFER_MILLIS) * blockAlign;
+        line = AudioSystem.getSourceDataLine(format);
+        line.open(format, bufferBytes);
+
+        int chunkFrames = Math.max(1, framesFor(LINE_BUFFER_MILLIS) / 4);
+        decodeBytes = new byte[chunkFrames * blockAlign];
+        decodeSamples = new float[chunkFrames * channels];
+        outputSamples = new float[chunkFrames * channels];
+        outputBytes = new byte[chunkFrames * blockAlign];
+        ring = new SpscFloatRingBuffer(framesFor(RING_BUFFER_MILLIS) * channels, channels);
+
+        Thread decoderThread = new Thread(this::runDecoder, "pcm-decoder");
+        decoderThread.setDaemon(true);
+        decoderThread.start();
+        Thread outputThread = new Thread(this::runOutput, "pcm-output");
+        outputThread.setDaemon(true);
+        outputThread.setPriority(Thread.MAX_PRIORITY);
+        outputThread.start();
+    }
+
+    private static AudioFormat parseFormat(MappedByteBuffer data, int body, long chunkSize) throws IOException {
+        if (chunkSize < 16 || body + 16 > data.limit()) {
+            throw new IOException("Truncated fmt chunk");
+        }
+        int audioFormat = data.getShort(body) & 0xFFFF;
+        int channels = data.getShort(body + 2) & 0xFFFF;
+        int sampleRate = data.getInt(body + 4);
+        int blockAlign = data.getShort(body + 12) & 0xFFFF;
+        int bitsPerSample = data.getShort(body + 14) & 0xFFFF;
+        if (audioFormat == FORMAT_EXTENSIBLE) {
+            audioFormat = extensibleSubFormat(data, body, chunkSize);
+        }
+        if (audioFormat != FORMAT_PCM) {
+            throw new IOException("Unsupported WAV encoding: " + audioFormat);
+        }
+        if (bitsPerSample != 8 && bitsPerSample != 16 && bitsPerSample != 24 && bitsPerSample != 32) {
+            throw new IOException("Unsupported bit depth: " + bitsPerSample);
+        }
+        if (channels == 0 || blockAlign != channels * (bitsPerSample / 8)) {
+            throw new IOException("Unsupported frame layout: " + channels + " channels, block " + blockAlign);
+        }
+        AudioFormat.Encoding encoding = bitsPerSample == 8
+                ? AudioFormat.Encoding.PCM_UNSIGNED : AudioFormat.Encoding.PCM_SIGNED;
+        return new AudioFormat(encoding, sampleRate, bitsPerSample, channels, blockAlign, sampleRate, false);
+    }
+
+    // The real encoding of a WAVE_FORMAT_EXTENSIBLE file is its SubFormat GUID, whose first
+    // two bytes are the classic format tag; anything but the standard PCM GUID returns -1.
+    private static int extensibleSubFormat(MappedByteBuffer data, int body, long chunkSize) throws IOException {
+        if (chunkSize < EXTENSIBLE_FORMAT_BYTES || body + EXTENSIBLE_FORMAT_BYTES > data.limit()
+                || (data.getShort(body + 16) & 0xFFFF) < EXTENSIBLE_FORMAT_BYTES - 18) {
+            throw new IOException("Truncated WAVE_FORMAT_EXTENSIBLE header");
+        }
+        int guid = body + 24;
+        boolean standardGuid = data.getShort(guid + 2) == PCM_GUID_DATA2
+                && data.getInt(guid + 4) == PCM_GUID_DATA3_4
+                && data.getLong(guid + 8) == PCM_GUID_TAIL;
+        return standardGuid ? data.getShort(guid) & 0xFFFF : -1;
+    }
+
+    private int framesFor(int millis) {
+        return (int) (format.getFrameRate() * millis / 1000);
+    }
+
+    private void runDecoder() {
+        try {
+            while (!closed) {
+                long seekFrame = pendingSeekFrame.getAndSet(-1);
+                if (seekFrame >= 0) {
+                    readOffset = Math.min(seekFrame * blockAlign, dataLength);
+                    ring.restart();
+                    seekTargetFrame = readOffset / blockAlign;
+                    awaitSeekAck(seekEpoch + 1);
+                    continue;
+                }
+
+                if (readOffset >= dataLength) {
+                    ring.finish();
+                    synchronized (lock) {
+                        while (!closed && pendingSeekFrame.get() < 0) {
+                            lock.wait();
+                        }
+                    }
+                    continue;
+                }
+
+                int length = (int) Math.min(decodeBytes.length, dataLength - readOffset);
+                data.get(dataOffset + (int) readOffset, decodeBytes, 0, length);
+                int sampleCount = decode(decodeBytes, length, decodeSamples);
+                readOffset += length;
+                publish(sampleCount);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void awaitSeekAck(long epoch) throws InterruptedException {
+        synchronized (lock) {
+            seekEpoch = epoch;
+            lock.notifyAll();
+            while (!closed && ackedEpoch != epoch) {
+                lock.wait();
+            }
+        }
+    }
+
+    private void publish(int sampleCount) throws InterruptedException {
+        int offset = 0;
+        while (offset < sampleCount && !closed && pendingSeekFrame.get() < 0) {
+            offset += ring.offer(decodeSamples, offset, sampleCount - offset);
+            if (offset < sampleCount) {
+                if (playing) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                } else {
+                    synchronized (lock) {
+                        if (!playing && !closed && pendingSeekFrame.get() < 0) {
+                            lock.wait(LINE_BUFFER_MILLIS);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void runOutput() {
+        try {
+            while (!closed) {
+                long epoch = seekEpoch;
+                if (epoch != ackedEpoch) {
+                    applySeek(epoch);
+                    continue;
+                }
+                if (!playing) {
+                    synchronized (lock) {
+                        while (!closed && !playing && seekEpoch == ackedEpoch) {
+                            lock.wait();
+                        }
+                    }
+                    continue;
+                }
+
+                int count = ring.poll(outputSamples, 0, outputSamples.length);
+                if (count == 0) {
+                    if (ring.isDrained()) {
+                        finishPlayback();
+                    } else {
+                        LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    }
+                    continue;
+                }
+
+                SpectrumAnalyzer analyzer = spectrumAnalyzer;
+                if (analyzer != null) {
+                    analyzer.feed(outputSamples, count, channels);
+                }
+                int length = encode(outputSamples, count, outputBytes);
+                // The only real underrun: the line played out everything it had before this write.
+                if (primed && line.available() >= line.getBufferSize()) {
+                    lineUnderruns++;
+                }
+                int offset = 0;
+                while (offset < length && !closed && seekEpoch == ackedEpoch) {
+                    offset += line.write(outputBytes, offset, length - offset);
+                }
+                primed = true;
+                reportPosition(false);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void applySeek(long epoch) {
+        line.stop();
+        line.flush();
+        ring.clear();
+        baseFrame = seekTargetFrame;
+        lineFramesAtSeek = line.getLongFramePosition();
+        endReached = false;
+        primed = false;
+        SpectrumAnalyzer analyzer = spectrumAnalyzer;
+        if (analyzer != null) {
+            analyzer.reset();
+        }
+        synchronized (lock) {
+            ackedEpoch = epoch;
+            lock.notifyAll();
+        }
+        if (playing) {
+            line.start();
+        }
+        reportPosition(true);
+    }
+
+    private void finishPlayback() {
+        line.drain();
+        playing = false;
+        endReached = true;
+        reportPosition(true);
+        Runnable callback = onEndOfMedia;
+        if (callback != null && !closed) {
+            callback.run();
+        }
+    }
+
+    private int decode(byte[] source, int length, float[] target) {
+        int samples = length / bytesPerSample;
+        int index = 0;
+        for (int i = 0; i < samples; i++, index += bytesPerSample) {
+            switch (bytesPerSample) {
+                case 1:
+                    target[i] = ((source[index] & 0xFF) - 128) / 128f;
+                    break;
+                case 2:
+                    target[i] = (short) ((source[index + 1] << 8) | (source[index] & 0xFF)) / 32768f;
+                    break;
+                case 3:
+                    target[i] = ((source[index + 2] << 16) | ((source[index + 1] & 0xFF) << 8)
+                            | (source[index] & 0xFF)) / 8388608f;
+                    break;
+                default:
+                    target[i] = ((source[index + 3] << 24) | ((source[index + 2] & 0xFF) << 16)
+                            | ((source[index + 1] & 0xFF) << 8) | (source[index] & 0xFF)) / 2147483648f;
+                    break;
+            }
+        }
+        return samples;
+    }
+
+    private int encode(float[] source, int samples, byte[] target) {
+        int index = 0;
+        for (int i = 0; i < samples; i++, index += bytesPerSample) {
+            float sample = Math.max(-1f, Math.min(1f, source[i]));
+            switch (bytesPerSample) {
+                case 1:
+                    target[index] = (byte) (Math.round(sample * 127f) + 128);
+                    break;
+                case 2: {
+                    int value = Math.round(sample * 32767f);
+                    target[index] = (byte) value;
+                    target[index + 1] = (byte) (value >> 8);
+                    break;
+                }
+                case 3: {
+                    int value = Math.round(sample * 8388607f);
+                    target[index] = (byte) value;
+                    target[index + 1] = (byte) (value >> 8);
+                    target[index + 2] = (byte) (value >> 16);
+                    break;
+                }
+                default: {
+                    int value = (int) Math.round(sample * 2147483647.0);
+                    target[index] = (byte) value;
+                    target[index + 1] = (byte) (value >> 8);
+                    target[index + 2] = (byte) (value >> 16);
+                    target[index + 3] = (byte) (value >> 24);
+                    break;
+                }
+            }
+        }
+        return index;
+    }
+
+    private void reportPosition(boolean force) {
+        long now = System.nanoTime();
+        LongConsumer listener = positionListener;
+        if (listener != null && (force || now - lastReportNanos >= POSITION_REPORT_MILLIS * 1_000_000L)) {
+            lastReportNanos = now;
+            listener.accept(getPositionMillis());
+        }
+    }
+
+    private void requestSeek(long frame) {
+        synchronized (lock) {
+            pendingSeekFrame.set(Math.max(0, frame));
+            // Unblocks a write() waiting on a full line buffer so the seek is applied promptly.
+            line.flush();
+            lock.notifyAll();
+        }
+    }
+
+    @Override
+    public void play() {
+        if (closed) {
+            return;
+        }
+        if (endReached) {
+            requestSeek(0);
+        }
+        synchronized (lock) {
+            line.start();
+            playing = true;
+            lock.notifyAll();
+        }
+    }
+
+    @Override
+    public void pause() {
+        playing = false;
+        line.stop();
+    }
+
+    @Override
+    public void stop() {
+        playing = false;
+        line.stop();
+        requestSeek(0);
+    }
+
+    @Override
+    public void seek(long millis) {
+        requestSeek((long) (millis * format.getFrameRate() / 1000));
+    }
+
+    @Override
+    public boolean isPlaying() {
+        return playing;
+    }
+
+    @Override
+    public long getPositionMillis() {
+        long frames = baseFrame + line.getLongFramePosition() - lineFramesAtSeek;
+        return (long) (frames * 1000 / format.getFrameRate());
+    }
+
+    @Override
+    public long getDurationMillis() {
+        return (long) (dataLength / blockAlign * 1000 / format.getFrameRate());
+    }
+
+    @Override
+    public float getSampleRate() {
+        return format.getSampleRate();
+    }
+
+    // Decoder-to-speaker delay: samples waiting in the ring plus those queued in the line.
+    public long getOutputLatencyMillis() {
+        long ringNanos = ring.getLatencyNanos(format.getFrameRate() * channels);
+        long lineFrames = (line.getBufferSize() - line.available()) / blockAlign;
+        return ringNanos / 1_000_000 + (long) (lineFrames * 1000 / format.getFrameRate());
+    }
+
+    public SpscFloatRingBuffer getRingBuffer() {
+        return ring;
+    }
+
+    @Override
+    public void setVolume(double volume) {
+        if (line.isControlSupported(FloatControl.Type.MASTER_GAIN)) {
+            FloatControl gain = (FloatControl) line.getControl(FloatControl.Type.MASTER_GAIN);
+            float decibels = volume <= 0 ? gain.getMinimum() : (float) (20 * Math.log10(volume));
+            gain.setValue(Math.max(gain.getMinimum(), Math.min(gain.getMaximum(), decibels)));
+        }
+    }
+
+    @Override
+    public void setMute(boolean mute) {
+        if (line.isControlSupported(BooleanControl.Type.MUTE)) {
+            ((BooleanControl) line.getControl(BooleanControl.Type.MUTE)).setValue(mute);
+        }
+    }
+
+    @Override
+    public void setOnEndOfMedia(Runnable onEndOfMedia) {
+        this.onEndOfMedia = onEndOfMedia;
+    }
+
+    @Override
+    public void setPositionListener(LongConsumer positionListener) {
+        this.positionListener = positionListener;
+    }
+
+    @Override
+    public void setSpectrumAnalyzer(SpectrumAnalyzer spectrumAnalyzer) {
+        this.spectrumAnalyzer = spectrumAnalyzer;
+    }
+
+    @Override
+    public long getUnderrunCount() {
+        return lineUnderruns;
+    }
+
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            playing = false;
+            lock.notifyAll();
+        }
+        line.stop();
+        line.flush();
+        line.close();
+    }
+}
@@ -0,0 +1,207 @@
+package org.example.user_interface;
+
+import javax.swing.*;
+import java.io.File;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// Presents the playlist store itself, so there is no second copy to keep in sync and an
+// edit costs the UI only an interval event. The store is edited on the EDT, and the
+// playlist manager reports each edit right after making it. Display names are only resolved
+// for rows the JList actually asks for: on a miss the row shows the bare file name while
+// the full name is resolved in the background and kept in a bounded LRU cache.
+public class PlaylistListModel extends AbstractListModel<String> {
+    private static final int CACHE_CAPACITY = 4_096;
+    private static final int QUEUE_CAPACITY = 256;
+
+    private List<String> paths = List.of();
+    private final Map<String, String> nameCache = new LinkedHashMap<>(CACHE_CAPACITY, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > CACHE_CAPACITY;
+        }
+    };
+    private final Set<String> pending = new HashSet<>();
+    private final ThreadPoolExecutor resolver;
+    private Function<String, String> displayNameResolver = path -> new File(path).getName();
+    // Written on the EDT only; volatile so the metrics thread reads current values.
+    private volatile long hits;
+    private volatile long misses;
+    private volatile long repaints;
+    private volatile long lastRepaintNanos;
+    private volatile long totalRepaintNanos;
+
+    public PlaylistListModel() {
+        resolver = new ThreadPoolExecutor(2, 2, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "playlist-name-resolver");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (task, executor) -> {
+                    // Rows scrolled past long ago are the least useful; drop the oldest request.
+                    Runnable dropped = executor.getQueue().poll();
+                    if (dropped instanceof ResolveTask) {
+                        String droppedPath = ((ResolveTask) dropped).path;
+                        SwingUtilities.invokeLater(() -> pending.remove(droppedPath));
+                    }
+                    executor.execute(task);
+                });
+        resolver.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public int getSize() {
+        return paths.size();
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        String path = paths.get(index);
+        String name = nameCache.get(path);
+        if (name != null) {
+            hits++;
+            return name;
+        }
+        misses++;
+        if (pending.add(path)) {
+            resolver.execute(new ResolveTask(path));
+        }
+        return fileName(path);
+    }
+
+    public void setDisplayNameResolver(Function<String, String> displayNameResolver) {
+        this.displayNameResolver = displayNameResolver;
+    }
+
+    // EDT only; the list is read on every paint, never copied.
+    public void setPaths(List<String> paths) {
+        int previousSize = this.paths.size();
+        this.paths = paths;
+        nameCache.clear();
+        if (previousSize > 0) {
+            fireIntervalRemoved(this, 0, previousSize - 1);
+        }
+        if (!paths.isEmpty()) {
+            fireIntervalAdded(this, 0, paths.size() - 1);
+        }
+    }
+
+    // The notifications below follow an edit the store has already made.
+    public void pathsAppended(int count) {
+        if (count > 0) {
+            fireIntervalAdded(this, paths.size() - count, paths.size() - 1);
+        }
+    }
+
+    public void pathRemoved(int index) {
+        fireIntervalRemoved(this, index, index);
+    }
+
+    // Indices must be in descending order; each contiguous run becomes one interval event.
+    public void pathsRemoved(int[] descendingIndices) {
+        int runEnd = -1;
+        for (int i = 0; i < descendingIndices.length; i++) {
+            int index = descendingIndices[i];
+            if (runEnd == -1) {
+                runEnd = index;
+            }
+            boolean runContinues = i + 1 < descendingIndices.length && descendingIndices[i + 1] == index - 1;
+            if (!runContinues) {
+                fireIntervalRemoved(this, index, runEnd);
+                runEnd = -1;
+            }
+        }
+    }
+
+    public void pathReplaced(int index, String previousPath) {
+        nameCache.remove(previousPath);
+        fireContentsChanged(this, index, index);
+    }
+
+    public void pathUpdated(int index, String path) {
+        nameCache.remove(path);
+        fireContentsChanged(this, index, index);
+    }
+
+    public void cleared(int previousSize) {
+        nameCache.clear();
+        if (previousSize > 0) {
+            fireIntervalRemoved(this, 0, previousSize - 1);
+        }
+    }
+
+    void recordRepaint(long nanos) {
+        repaints++;
+        lastRepaintNanos = nanos;
+        totalRepaintNanos += nanos;
+    }
+
+    // Rows may have moved while the name was resolved; the store finds the current one cheaply.
+    private void resolved(String path, String name) {
+        pending.remove(path);
+        nameCache.put(path, name);
+        int index = paths.indexOf(path);
+        if (index != -1) {
+            fireContentsChanged(this, index, index);
+        }
+    }
+
+    private static String fileName(String path) {
+        int separator = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'));
+        return separator == -1 ? path : path.substring(separator + 1);
+    }
+
+    public int getCacheSize() {
+        return nameCache.size();
+    }
+
+    public long getCacheHits() {
+        return hits;
+    }
+
+    public long getCacheMisses() {
+        return misses;
+    }
+
+    public double getCacheHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : hits / (double) total;
+    }
+
+    public long getLastRepaintNanos() {
+        return lastRepaintNanos;
+    }
+
+    public long getAverageRepaintNanos() {
+        return repaints == 0 ? 0 : totalRepaintNanos / repaints;
+    }
+
+    private class ResolveTask implements Runnable {
+        private final String path;
+
+        ResolveTask(String path) {
+            this.path = path;
+        }
+
+        @Override
+        public void run() {
+            String name;
+            try {
+                name = displayNameResolver.apply(path);
+            } catch (RuntimeException e) {
+                name = fileName(path);
+            }
+            String resolvedName = name;
+            SwingUtilities.invokeLater(() -> resolved(path, resolvedName));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.user_interface;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Lock-free triple buffer: the audio thread always publishes the newest spectrum and
+// the FX thread only ever sees the latest one, so unread frames are dropped, not queued.
+public class SpectrumBuffer {
+    private static final int INDEX_MASK = 0b011;
+    private static final int FRESH = 0b100;
+
+    private final float[][] buffers;
+    private final int[] lengths = new int[3];
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private int back = 0;
+    private int front = 2;
+
+    public SpectrumBuffer(int capacity) {
+        buffers = new float[3][capacity];
+    }
+
+    public void publish(float[] magnitudes) {
+        float[] target = buffers[back];
+        int length = Math.min(magnitudes.length, target.length);
+        System.arraycopy(magnitudes, 0, target, 0, length);
+        lengths[back] = length;
+
+        int previous = middle.getAndSet(back | FRESH);
+        back = previous & INDEX_MASK;
+        published.incrementAndGet();
+        if ((previous & FRESH) != 0) {
+            coalesced.incrementAndGet();
+        }
+    }
+
+    public boolean hasFresh() {
+        return (middle.get() & FRESH) != 0;
+    }
+
+    public float[] acquire() {
+        if (!hasFresh()) {
+            return null;
+        }
+        front = middle.getAndSet(front) & INDEX_MASK;
+        return buffers[front];
+    }
+
+    public int acquiredLength() {
+        return lengths[front];
+    }
+
+    public long getPublishedCount() {
+        return published.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+}
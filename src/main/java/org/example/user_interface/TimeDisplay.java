@@ -0,0 +1,86 @@
+package org.example.user_interface;
+
+import javax.swing.*;
+
+// "position / duration" label for the controls bar. The text is built in a reused char
+// array without format parsing, and setText is only called when one of the shown seconds
+// changes, so the ~60 position ticks per second collapse into one label update. Media of
+// an hour or longer switches both halves to h:mm:ss. EDT only.
+public class TimeDisplay extends JLabel {
+    private static final long NOT_SHOWN = Long.MIN_VALUE;
+
+    // Long.MAX_VALUE ms is 13 hour digits plus ":mm:ss", twice, plus the separator.
+    private final char[] buffer = new char[48];
+    private long shownPositionSeconds = NOT_SHOWN;
+    private long shownDurationSeconds = NOT_SHOWN;
+    private long updateCount;
+    private long skippedCount;
+
+    public TimeDisplay() {
+        super("00:00 / 00:00");
+    }
+
+    public void setTime(long positionMillis, long durationMillis) {
+        long position = toSeconds(positionMillis);
+        long duration = toSeconds(durationMillis);
+        if (position == shownPositionSeconds && duration == shownDurationSeconds) {
+            skippedCount++;
+            return;
+        }
+        shownPositionSeconds = position;
+        shownDurationSeconds = duration;
+
+        boolean hours = Math.max(position, duration) >= 3600;
+        int length = appendTime(position, hours, buffer, 0);
+        buffer[length++] = ' ';
+        buffer[length++] = '/';
+        buffer[length++] = ' ';
+        length = appendTime(duration, hours, buffer, length);
+        updateCount++;
+        setText(new String(buffer, 0, length));
+    }
+
+    public long getUpdateCount() {
+        return updateCount;
+    }
+
+    public long getSkippedCount() {
+        return skippedCount;
+    }
+
+    // mm:ss below an hour, h:mm:ss from there on. Unknown or negative times show as 00:00.
+    public static String format(long millis) {
+        char[] out = new char[24];
+        long seconds = toSeconds(millis);
+        return new String(out, 0, appendTime(seconds, seconds >= 3600, out, 0));
+    }
+
+    private static long toSeconds(long millis) {
+        return millis < 0 ? 0 : millis / 1000;
+    }
+
+    private static int appendTime(long seconds, boolean hours, char[] out, int offset) {
+        if (hours) {
+            offset = appendNumber(seconds / 3600, 1, out, offset);
+            out[offset++] = ':';
+            offset = appendNumber(seconds / 60 % 60, 2, out, offset);
+        } else {
+            offset = appendNumber(seconds / 60, 2, out, offset);
+        }
+        out[offset++] = ':';
+        return appendNumber(seconds % 60, 2, out, offset);
+    }
+
+    private static int appendNumber(long value, int minDigits, char[] out, int offset) {
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        digits = Math.max(digits, minDigits);
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            out[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return offset + digits;
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.user_interface;
+
+import javax.swing.*;
+import java.util.List;
+
+// Shows a track table view without copying it; views can hold the whole playlist. The view
+// itself never changes, so the model is replaced as a whole, and listeners are told about
+// it like a DefaultListModel would be: rows that both views have are reported as changed.
+class TrackViewListModel extends AbstractListModel<String> {
+    private List<String> view = List.of();
+
+    @Override
+    public int getSize() {
+        return view.size();
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        return view.get(index);
+    }
+
+    // EDT only.
+    void setView(List<String> replacement) {
+        int previousSize = view.size();
+        view = replacement;
+        int size = view.size();
+        if (size < previousSize) {
+            fireIntervalRemoved(this, size, previousSize - 1);
+        } else if (size > previousSize) {
+            fireIntervalAdded(this, previousSize, size - 1);
+        }
+        int common = Math.min(size, previousSize);
+        if (common > 0) {
+            fireContentsChanged(this, 0, common - 1);
+        }
+    }
+}
@@ -1,12 +1,18 @@
 package org.example.user_interface;
 
-import javafx.scene.media.MediaPlayer;
 import org.example.AppMusicPlayer;
+import org.example.logic.FileStatusService;
+import org.example.logic.PlayQueue;
+import org.example.logic.PlaylistManager;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
-import java.io.File;
+import java.awt.event.MouseEvent;
 import java.util.List;
 
 public class UIComponents {
@@ -19,25 +25,48 @@ public class UIComponents {
     private final JButton stopButton;
     private final JButton muteButton;
     private final JButton addSongsButton;
+    private final JButton importFolderButton;
     private final JSlider volumeSlider;
-    private final JSlider progressSlider;
-    private final JLabel timeLabel;
-    private final DefaultListModel<String> playlistModel;
+    private final WaveformSlider progressSlider;
+    private final TimeDisplay timeLabel;
+    private final PlaylistListModel playlistModel;
     private final JList<String> playlistList;
     private final JButton removeButton;
     private final JButton clearButton;
+    private final JButton savePlaylistButton;
+    private final JButton loadPlaylistButton;
+    private final JButton queueNextButton;
+    private final JButton shuffleButton;
+    private final JButton repeatButton;
+    private final JTextField searchField;
+    private final DefaultListModel<String> searchResultsModel;
+    private final TrackViewListModel trackViewModel = new TrackViewListModel();
+    private final JList<String> searchResultsList;
+    private final JComboBox<String> viewSelector;
+    private final JPanel playlistCards;
+    private final CardLayout playlistCardLayout;
+    private boolean selectingProgrammatically = false;
 
     public UIComponents() {
         mainPanel = new JPanel(new BorderLayout());
         applyDarkTheme(mainPanel);
 
         // Playlist Sidebar
-        playlistModel = new DefaultListModel<>();
-        playlistList = new JList<>(playlistModel);
+        playlistModel = new PlaylistListModel();
+        playlistList = new JList<>(playlistModel) {
+            @Override
+            protected void paintComponent(Graphics g) {
+                long start = System.nanoTime();
+                super.paintComponent(g);
+                playlistModel.recordRepaint(System.nanoTime() - start);
+            }
+        };
         playlistList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         playlistList.setBackground(Color.DARK_GRAY);
         playlistList.setForeground(Color.WHITE);
         playlistList.setFont(new Font("SansSerif", Font.PLAIN, 14));
+        // Fixed cell sizes keep JList from measuring every row; only visible rows are rendered.
+        playlistList.setPrototypeCellValue("A typical track file name.mp3  (00:00)");
         playlistList.setFixedCellHeight(30);
 
         // Playlist Scroll Pane
@@ -47,17 +76,67 @@ public class UIComponents {
         // Playlist Control Buttons
         removeButton = new JButton("Remove");
         clearButton = new JButton("Clear");
+        savePlaylistButton = new JButton("Save");
+        loadPlaylistButton = new JButton("Load");
+        queueNextButton = new JButton("Play Next");
+        shuffleButton = new JButton("Shuffle: Off");
+        repeatButton = new JButton("Repeat: All");
         setButtonStyle(removeButton);
         setButtonStyle(clearButton);
+        setButtonStyle(savePlaylistButton);
+        setButtonStyle(loadPlaylistButton);
+        setButtonStyle(queueNextButton);
+        setButtonStyle(shuffleButton);
+        setButtonStyle(repeatButton);
 
         JPanel playlistControls = new JPanel(new GridLayout(0, 1));
         playlistControls.setBackground(Color.DARK_GRAY);
         playlistControls.add(removeButton);
         playlistControls.add(clearButton);
+        playlistControls.add(savePlaylistButton);
+        playlistControls.add(loadPlaylistButton);
+        playlistControls.add(queueNextButton);
+        playlistControls.add(shuffleButton);
+        playlistControls.add(repeatButton);
+
+        // Search box; while it has text, matches replace the playlist in the sidebar.
+        searchField = new JTextField();
+        searchField.setToolTipText("Search file names and tags");
+        searchResultsModel = new DefaultListModel<>();
+        searchResultsList = new JList<>(searchResultsModel);
+        searchResultsList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        searchResultsList.setBackground(Color.DARK_GRAY);
+        searchResultsList.setForeground(Color.WHITE);
+        searchResultsList.setFont(new Font("SansSerif", Font.PLAIN, 14));
+        searchResultsList.setFixedCellHeight(30);
+        searchResultsList.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                String path = (String) value;
+                int separator = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'));
+                return super.getListCellRendererComponent(list, path.substring(separator + 1), index,
+                        isSelected, cellHasFocus);
+            }
+        });
+
+        // Sorted and filtered views of the playlist share the results list with search.
+        viewSelector = new JComboBox<>(PlaylistManager.VIEWS.toArray(new String[0]));
+        viewSelector.setToolTipText("Sort or filter the playlist");
+
+        playlistCardLayout = new CardLayout();
+        playlistCards = new JPanel(playlistCardLayout);
+        playlistCards.add(playlistScroll, "playlist");
+        playlistCards.add(new JScrollPane(searchResultsList), "results");
 
         JPanel leftSidebar = new JPanel(new BorderLayout());
         leftSidebar.setBackground(Color.DARK_GRAY);
-        leftSidebar.add(playlistScroll, BorderLayout.CENTER);
+        JPanel sidebarHeader = new JPanel(new GridLayout(0, 1));
+        sidebarHeader.setBackground(Color.DARK_GRAY);
+        sidebarHeader.add(searchField);
+        sidebarHeader.add(viewSelector);
+        leftSidebar.add(sidebarHeader, BorderLayout.NORTH);
+        leftSidebar.add(playlistCards, BorderLayout.CENTER);
         leftSidebar.add(playlistControls, BorderLayout.SOUTH);
 
         mainPanel.add(leftSidebar, BorderLayout.WEST);
@@ -72,10 +151,11 @@ public class UIComponents {
         nextButton = new JButton("⏭");
         muteButton = new JButton("Mute");
         addSongsButton = new JButton("➕ Add Songs");
+        importFolderButton = new JButton("📁 Import Folder");
 
         volumeSlider = new JSlider(0, 100, 80);
-        progressSlider = new JSlider(0, 100, 0);
-        timeLabel = new JLabel("00:00 / 00:00");
+        progressSlider = new WaveformSlider(0, 1, 0);
+        timeLabel = new TimeDisplay();
 
         setButtonStyle(previousButton);
         setButtonStyle(playPauseButton);
@@ -83,6 +163,7 @@ public class UIComponents {
         setButtonStyle(nextButton);
         setButtonStyle(muteButton);
         setButtonStyle(addSongsButton);
+        setButtonStyle(importFolderButton);
 
         controlsPanel.add(previousButton);
         controlsPanel.add(playPauseButton);
@@ -92,6 +173,7 @@ public class UIComponents {
         controlsPanel.add(new JLabel("Volume"));
         controlsPanel.add(volumeSlider);
         controlsPanel.add(addSongsButton);
+        controlsPanel.add(importFolderButton);
         controlsPanel.add(timeLabel);
 
         mainPanel.add(controlsPanel, BorderLayout.NORTH);
@@ -147,7 +229,7 @@ public class UIComponents {
         return volumeSlider;
     }
 
-    public JSlider getProgressSlider() {
+    public WaveformSlider getProgressSlider() {
         return progressSlider;
     }
 
@@ -159,7 +241,7 @@ public class UIComponents {
         return statusLabel;
     }
 
-    public JLabel getTimeLabel() {
+    public TimeDisplay getTimeLabel() {
         return timeLabel;
     }
 
@@ -167,32 +249,64 @@ public class UIComponents {
         return playlistList;
     }
 
+    public PlaylistListModel getPlaylistModel() {
+        return playlistModel;
+    }
+
     public JButton getAddSongsButton() {
         return addSongsButton;
     }
 
-    public void addToPlaylist(String name) {
-        SwingUtilities.invokeLater(() -> {
-            DefaultListModel<String> model;
-            if (playlistList.getModel() instanceof DefaultListModel) {
-                model = (DefaultListModel<String>) playlistList.getModel();
-            } else {
-                model = new DefaultListModel<>();
-            }
-            model.addElement(name);
-            playlistList.setModel(model);
-        });
+    public JButton getImportFolderButton() {
+        return importFolderButton;
     }
 
-    public void clearPlaylist() {
-        SwingUtilities.invokeLater(() -> {
-            DefaultListModel<String> model = new DefaultListModel<>();
-            playlistList.setModel(model);
-        });
+    public void clearPlaylist(int previousSize) {
+        playlistModel.cleared(previousSize);
+    }
+
+    public void showSearchResults(List<String> paths) {
+        trackViewModel.setView(List.of());
+        searchResultsModel.clear();
+        searchResultsModel.addAll(paths);
+        searchResultsList.setModel(searchResultsModel);
+        playlistCardLayout.show(playlistCards, "results");
+    }
+
+    // A refreshed view replaces the previous one in the same model, so the list updates in place.
+    public void showTrackView(List<String> view) {
+        searchResultsModel.clear();
+        trackViewModel.setView(view);
+        if (searchResultsList.getModel() != trackViewModel) {
+            searchResultsList.setModel(trackViewModel);
+        }
+        playlistCardLayout.show(playlistCards, "results");
+    }
+
+    public void showPlaylist() {
+        trackViewModel.setView(List.of());
+        searchResultsModel.clear();
+        searchResultsList.setModel(searchResultsModel);
+        playlistCardLayout.show(playlistCards, "playlist");
+    }
+
+    // Reflects a view change made by the playlist manager without asking it to show the view.
+    public void setSelectedView(int view) {
+        selectingProgrammatically = true;
+        try {
+            viewSelector.setSelectedIndex(view);
+        } finally {
+            selectingProgrammatically = false;
+        }
     }
 
     public void setSelectedPlaylistIndex(int index) {
-        playlistList.setSelectedIndex(index);
+        selectingProgrammatically = true;
+        try {
+            playlistList.setSelectedIndex(index);
+        } finally {
+            selectingProgrammatically = false;
+        }
     }
 
     public void initListeners(AppMusicPlayer app) {
@@ -201,14 +315,20 @@ public class UIComponents {
             app.getPlaylistManager().addSongsThroughChooser();
         });
 
+        importFolderButton.addActionListener(e -> app.getPlaylistManager().importLibrary());
+
         playlistList.addListSelectionListener(e -> {
-            if (!e.getValueIsAdjusting()) {
+            if (!e.getValueIsAdjusting() && !selectingProgrammatically) {
                 int index = playlistList.getSelectedIndex();
                 if (index != -1 && index < app.getPlaylistManager().getMediaFiles().size()) {
                     String filePath = app.getPlaylistManager().getMediaFiles().get(index);
-                    File file = new File(filePath);
-
-                    if (file.exists()) {
+                    if (filePath.equals(app.getPlaylistManager().getCurrentFilePath())
+                            && app.getMediaController().hasLoadedMedia()) {
+                        // Selection shifted by a removal above it; the track is already loaded.
+                        return;
+                    }
+                    FileStatusService.Status status = app.getFileStatus().status(filePath);
+                    if (status != FileStatusService.Status.MISSING) {
                         app.getPlaylistManager().setCurrentTrackIndex(index);
                         app.getMediaController().loadMediaFile(filePath);
                     } else {
@@ -221,8 +341,7 @@ public class UIComponents {
 
         playPauseButton.addActionListener(e -> {
             app.getMediaController().togglePlayPause();
-            if (app.getMediaController().getMediaPlayer() != null &&
-                    app.getMediaController().getMediaPlayer().getStatus() == MediaPlayer.Status.PLAYING) {
+            if (app.getMediaController().isPlaying()) {
                 setStatus("Playing");
             } else {
                 setStatus("Paused");
@@ -240,12 +359,11 @@ public class UIComponents {
         });
 
         volumeSlider.addChangeListener(e -> {
-            if (app.getMediaController().getMediaPlayer() != null) {
-                double volume = volumeSlider.getValue() / 100.0;
-                app.getMediaController().getMediaPlayer().setVolume(volume);
-                if (app.getMediaController().isMuted() && volume > 0) {
-                    app.getMediaController().setMute(false);
-                }
+            // Always passed on, so a player prepared in the background starts at the current level.
+            double volume = volumeSlider.getValue() / 100.0;
+            app.getMediaController().setVolume(volume);
+            if (app.getMediaController().hasLoadedMedia() && app.getMediaController().isMuted() && volume > 0) {
+                app.getMediaController().setMute(false);
             }
         });
 
@@ -263,8 +381,9 @@ public class UIComponents {
         });
 
         progressSlider.addChangeListener(e -> {
-            if (app.getMediaController().isDragging()) {
-                app.getMediaController().seekMedia();
+            // Position updates that land mid-drag are not the user's and carry a stale position.
+            if (app.getMediaController().isDragging() && !progressSlider.isSettingTimeline()) {
+                app.getMediaController().scrubMedia();
             }
         });
 
@@ -286,6 +405,78 @@ public class UIComponents {
         clearButton.addActionListener(e -> {
             app.getPlaylistManager().clearPlaylist();
         });
+
+        savePlaylistButton.addActionListener(e -> app.getPlaylistManager().savePlaylist());
+
+        loadPlaylistButton.addActionListener(e -> app.getPlaylistManager().loadPlaylist());
+
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                app.getPlaylistManager().search(searchField.getText());
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                app.getPlaylistManager().search(searchField.getText());
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+        searchField.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (e.getKeyCode() == KeyEvent.VK_ESCAPE) {
+                    searchField.setText("");
+                } else if (e.getKeyCode() == KeyEvent.VK_DOWN && searchResultsList.getModel().getSize() > 0) {
+                    searchResultsList.requestFocusInWindow();
+                    searchResultsList.setSelectedIndex(0);
+                }
+            }
+        });
+        searchField.addActionListener(e -> {
+            if (searchResultsList.getModel().getSize() > 0) {
+                app.getPlaylistManager().playSearchResult(searchResultsList.getModel().getElementAt(0));
+            }
+        });
+        searchResultsList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2 && searchResultsList.getSelectedValue() != null) {
+                    app.getPlaylistManager().playSearchResult(searchResultsList.getSelectedValue());
+                }
+            }
+        });
+        searchResultsList.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (e.getKeyCode() == KeyEvent.VK_ENTER && searchResultsList.getSelectedValue() != null) {
+                    app.getPlaylistManager().playSearchResult(searchResultsList.getSelectedValue());
+                } else if (e.getKeyCode() == KeyEvent.VK_ESCAPE) {
+                    searchField.setText("");
+                    searchField.requestFocusInWindow();
+                }
+            }
+        });
+
+        viewSelector.addActionListener(e -> {
+            if (!selectingProgrammatically) {
+                app.getPlaylistManager().showView(viewSelector.getSelectedIndex());
+            }
+        });
+
+        queueNextButton.addActionListener(e -> app.getPlaylistManager().queueNext(playlistList.getSelectedIndex()));
+
+        shuffleButton.addActionListener(e ->
+                shuffleButton.setText(app.getPlaylistManager().toggleShuffle() ? "Shuffle: On" : "Shuffle: Off"));
+
+        repeatButton.addActionListener(e -> {
+            PlayQueue.RepeatMode mode = app.getPlaylistManager().cycleRepeatMode();
+            repeatButton.setText(mode == PlayQueue.RepeatMode.ALL ? "Repeat: All"
+                    : mode == PlayQueue.RepeatMode.ONE ? "Repeat: One" : "Repeat: Off");
+        });
     }
 
     public void setNowPlaying(String text) {
@@ -318,12 +509,6 @@ public class UIComponents {
     }
 
     public void refreshPlaylistDisplay(List<String> filePaths) {
-        SwingUtilities.invokeLater(() -> {
-            DefaultListModel<String> model = new DefaultListModel<>();
-            for (String path : filePaths) {
-                model.addElement(new File(path).getName());
-            }
-            playlistList.setModel(model);
-        });
+        playlistModel.setPaths(filePaths);
     }
 }
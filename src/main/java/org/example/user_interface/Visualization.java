@@ -1,46 +1,226 @@
 package org.example.user_interface;
 
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
 import javafx.scene.Group;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
 
+import java.util.function.LongConsumer;
+
 public class Visualization {
+    public static final String BACKEND_PROPERTY = "visualization.backend";
     private static final int BANDS = 64;
     private static final int WIDTH = 10;
     private static final int HEIGHT = 100;
+    private static final int MIN_BAR_HEIGHT = 10;
+    private static final float THRESHOLD_DB = -60f;
+    private static final int BRIGHTNESS_LEVELS = 61;
+    private final Backend backend;
     private final Group root;
     private final Rectangle[] bars;
+    private final Canvas canvas;
+    // Colors are precomputed per band and brightness step so rendering never allocates.
+    private final Color[][] palette;
+    private final SpectrumBuffer spectrumBuffer;
+    private final AnimationTimer timer;
+    private boolean timerRunning = false;
+    private volatile long framesRendered;
+    private volatile long lastFrameNanos;
+    private volatile long totalFrameNanos;
+    private volatile LongConsumer frameListener;
+
+    public enum Backend {
+        NODES, CANVAS;
+
+        public static Backend fromSystemProperty() {
+            String value = System.getProperty(BACKEND_PROPERTY, "nodes");
+            return "canvas".equalsIgnoreCase(value) ? CANVAS : NODES;
+        }
+    }
 
     public Visualization() {
+        this(Backend.fromSystemProperty());
+    }
+
+    public Visualization(Backend backend) {
+        this.backend = backend;
         root = new Group();
-        bars = new Rectangle[BANDS];
+        palette = new Color[BANDS][BRIGHTNESS_LEVELS];
+        spectrumBuffer = new SpectrumBuffer(BANDS);
 
         for (int i = 0; i < BANDS; i++) {
-            Rectangle bar = new Rectangle();
-            bar.setX(i * (WIDTH + 2));
-            bar.setY(HEIGHT);
-            bar.setWidth(WIDTH);
-            bar.setHeight(0);
-            bar.setFill(Color.LIME);
-            bars[i] = bar;
-            root.getChildren().add(bar);
+            double hue = i * 360.0 / BANDS;
+            for (int level = 0; level < BRIGHTNESS_LEVELS; level++) {
+                palette[i][level] = Color.hsb(hue, 1.0, level / (double) (BRIGHTNESS_LEVELS - 1));
+            }
         }
+
+        if (backend == Backend.CANVAS) {
+            bars = null;
+            canvas = new Canvas(BANDS * (WIDTH + 2), HEIGHT);
+            root.getChildren().add(canvas);
+        } else {
+            canvas = null;
+            bars = new Rectangle[BANDS];
+            for (int i = 0; i < BANDS; i++) {
+                Rectangle bar = new Rectangle();
+                bar.setX(i * (WIDTH + 2));
+                bar.setY(HEIGHT);
+                bar.setWidth(WIDTH);
+                bar.setHeight(0);
+                bar.setFill(Color.LIME);
+                bars[i] = bar;
+                root.getChildren().add(bar);
+            }
+        }
+
+        timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                float[] frame = spectrumBuffer.acquire();
+                if (frame != null) {
+                    update(frame, spectrumBuffer.acquiredLength());
+                }
+            }
+        };
+    }
+
+    // Safe to call from the media player's spectrum thread; drawing happens on the next pulse.
+    public void submit(float[] magnitudes) {
+        spectrumBuffer.publish(magnitudes);
+    }
+
+    public void start() {
+        runOnFxThread(() -> {
+            if (!timerRunning) {
+                timer.start();
+                timerRunning = true;
+            }
+        });
+    }
+
+    public void stop() {
+        runOnFxThread(() -> {
+            if (timerRunning) {
+                timer.stop();
+                timerRunning = false;
+            }
+        });
     }
 
     public void update(float[] magnitudes) {
+        update(magnitudes, magnitudes.length);
+    }
+
+    private void update(float[] magnitudes, int length) {
         if (root.getScene() != null && root.getScene().getWindow() != null) {
-            root.getChildren().clear();
-            for (int i = 0; i < magnitudes.length; i++) {
-                double barHeight = Math.max(10, (60 + magnitudes[i]) * 2);
-                Rectangle bar = new Rectangle(i * 10, HEIGHT - barHeight, 8, barHeight);
-                double brightness = Math.max(0.0, Math.min(1.0, 1.0 + magnitudes[i] / 60.0));
-                bar.setFill(Color.hsb((i * 360.0 / magnitudes.length), 1.0, brightness));
-                root.getChildren().add(bar);
+            long start = System.nanoTime();
+            render(magnitudes, length);
+            long elapsed = System.nanoTime() - start;
+            lastFrameNanos = elapsed;
+            totalFrameNanos += elapsed;
+            framesRendered++;
+            LongConsumer listener = frameListener;
+            if (listener != null) {
+                listener.accept(elapsed);
             }
         }
     }
 
+    // Called on the FX thread with each frame's render time in nanoseconds.
+    public void setFrameListener(LongConsumer frameListener) {
+        this.frameListener = frameListener;
+    }
+
+    void render(float[] magnitudes, int length) {
+        int count = Math.min(length, BANDS);
+        if (backend == Backend.CANVAS) {
+            renderCanvas(magnitudes, count);
+        } else {
+            renderNodes(magnitudes, count);
+        }
+    }
+
+    private void renderNodes(float[] magnitudes, int count) {
+        for (int i = 0; i < count; i++) {
+            double barHeight = barHeight(magnitudes[i]);
+            Rectangle bar = bars[i];
+            bar.setHeight(barHeight);
+            bar.setY(HEIGHT - barHeight);
+            bar.setFill(palette[i][brightnessLevel(magnitudes[i])]);
+        }
+        for (int i = count; i < BANDS; i++) {
+            bars[i].setHeight(0);
+            bars[i].setY(HEIGHT);
+        }
+    }
+
+    private void renderCanvas(float[] magnitudes, int count) {
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        for (int i = 0; i < count; i++) {
+            double barHeight = barHeight(magnitudes[i]);
+            gc.setFill(palette[i][brightnessLevel(magnitudes[i])]);
+            gc.fillRect(i * (WIDTH + 2), HEIGHT - barHeight, WIDTH, barHeight);
+        }
+    }
+
+    private static double barHeight(float magnitude) {
+        return Math.max(MIN_BAR_HEIGHT, (magnitude - THRESHOLD_DB) * 2);
+    }
+
+    private static int brightnessLevel(float magnitude) {
+        float brightness = 1f + magnitude / -THRESHOLD_DB;
+        if (brightness <= 0f) {
+            return 0;
+        }
+        if (brightness >= 1f) {
+            return BRIGHTNESS_LEVELS - 1;
+        }
+        return Math.round(brightness * (BRIGHTNESS_LEVELS - 1));
+    }
+
+    private static void runOnFxThread(Runnable action) {
+        if (Platform.isFxApplicationThread()) {
+            action.run();
+        } else {
+            Platform.runLater(action);
+        }
+    }
+
     public Group getRoot() {
         return root;
     }
+
+    public int getBandCount() {
+        return BANDS;
+    }
+
+    public float getThresholdDb() {
+        return THRESHOLD_DB;
+    }
+
+    public Backend getBackend() {
+        return backend;
+    }
+
+    public SpectrumBuffer getSpectrumBuffer() {
+        return spectrumBuffer;
+    }
+
+    public long getFramesRendered() {
+        return framesRendered;
+    }
+
+    public long getLastFrameNanos() {
+        return lastFrameNanos;
+    }
+
+    public long getAverageFrameNanos() {
+        long frames = framesRendered;
+        return frames == 0 ? 0 : totalFrameNanos / frames;
+    }
 }
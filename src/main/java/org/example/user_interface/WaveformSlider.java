@@ -0,0 +1,101 @@
+package org.example.user_interface;
+
+import org.example.logic.PeakPyramid;
+
+import javax.swing.*;
+import java.awt.*;
+
+// Seek bar that paints the track's waveform behind the slider. Columns are reduced from
+// the precomputed peak pyramid on each repaint, so no audio is decoded here; the column
+// buffers are only reallocated when the component gets wider. The slider's model counts
+// milliseconds (coarser units only past Integer.MAX_VALUE ms), so seeks are not limited to
+// percent steps.
+public class WaveformSlider extends JSlider {
+    private static final Color PLAYED_COLOR = new Color(115, 164, 209);
+    private static final Color REMAINING_COLOR = new Color(90, 90, 90);
+
+    private PeakPyramid waveform;
+    private long durationMillis = 0;
+    private long millisPerUnit = 1;
+    private double zoomFrom = 0.0;
+    private double zoomTo = 1.0;
+    private byte[] columnMinimums = new byte[0];
+    private byte[] columnMaximums = new byte[0];
+    // Lets change listeners tell playback progress apart from the user moving the thumb.
+    private boolean settingTimeline = false;
+
+    public WaveformSlider(int min, int max, int value) {
+        super(min, max, value);
+        setOpaque(false);
+    }
+
+    public void setTimeline(long positionMillis, long durationMillis) {
+        settingTimeline = true;
+        try {
+            long total = Math.max(0, durationMillis);
+            if (total != this.durationMillis) {
+                this.durationMillis = total;
+                millisPerUnit = this.durationMillis / Integer.MAX_VALUE + 1;
+                setMaximum((int) Math.max(1, this.durationMillis / millisPerUnit));
+            }
+            setValue((int) Math.max(0, Math.min(getMaximum(), positionMillis / millisPerUnit)));
+        } finally {
+            settingTimeline = false;
+        }
+    }
+
+    public boolean isSettingTimeline() {
+        return settingTimeline;
+    }
+
+    public long getPositionMillis() {
+        return Math.min(durationMillis, (long) getValue() * millisPerUnit);
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setWaveform(PeakPyramid waveform) {
+        this.waveform = waveform;
+        repaint();
+    }
+
+    public PeakPyramid getWaveform() {
+        return waveform;
+    }
+
+    // Shows only the [from, to) fraction of the track, e.g. for a zoomed-in preview.
+    public void setZoom(double from, double to) {
+        zoomFrom = Math.max(0.0, Math.min(from, 1.0));
+        zoomTo = Math.max(zoomFrom, Math.min(to, 1.0));
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        g.setColor(getBackground());
+        g.fillRect(0, 0, getWidth(), getHeight());
+        PeakPyramid current = waveform;
+        int width = getWidth();
+        if (current != null && width > 0 && current.getPeakCount(0) > 0) {
+            if (columnMinimums.length < width) {
+                columnMinimums = new byte[width];
+                columnMaximums = new byte[width];
+            }
+            current.render(zoomFrom, zoomTo, width, columnMinimums, columnMaximums);
+
+            int middle = getHeight() / 2;
+            double scale = middle / 128.0;
+            double range = getMaximum() - getMinimum();
+            double played = range <= 0 ? 0 : (getValue() - getMinimum()) / range;
+            int playedColumns = (int) ((played - zoomFrom) / Math.max(1e-9, zoomTo - zoomFrom) * width);
+            for (int x = 0; x < width; x++) {
+                g.setColor(x < playedColumns ? PLAYED_COLOR : REMAINING_COLOR);
+                g.drawLine(x, middle - (int) (columnMaximums[x] * scale),
+                        x, middle - (int) (columnMinimums[x] * scale));
+            }
+        }
+        super.paintComponent(g);
+    }
+}